@@ -0,0 +1,109 @@
+package com.midnight.music.data.db;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.midnight.music.data.model.Playlist;
+import com.midnight.music.data.model.Song;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times PlaylistDao.importSongs against an in-memory database at 100, 1,000 and
+ * 10,000 songs and checks every row landed. Timings go to logcat under this class
+ * name; the assertions are on row counts only, so the test never flakes on a slow
+ * device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportSongsBenchmarkTest {
+    private static final String TAG = "ImportSongsBenchmark";
+
+    private AppDatabase db;
+    private PlaylistDao playlistDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        playlistDao = db.playlistDao();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void import100Songs() {
+        benchmarkImport(100);
+    }
+
+    @Test
+    public void import1000Songs() {
+        benchmarkImport(1_000);
+    }
+
+    @Test
+    public void import10000Songs() {
+        benchmarkImport(10_000);
+    }
+
+    private void benchmarkImport(int size) {
+        long playlistId = playlistDao.insert(new Playlist("Imported"));
+        List<Song> songs = buildSongs(size);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        playlistDao.importSongs(playlistId, songs, true);
+        long elapsedMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+        Log.i(TAG, "importSongs(" + size + "): " + elapsedMs + " ms");
+
+        assertEquals(size, queryLong("SELECT COUNT(*) FROM songs"));
+        assertEquals(size, queryLong("SELECT COUNT(*) FROM songs WHERE isLiked = 1"));
+        assertEquals(size, queryLong("SELECT COUNT(*) FROM playlist_song_cross_ref WHERE playlistId = " + playlistId));
+        // Two distinct singers per song, written in the same transaction
+        assertEquals(size * 2L, queryLong("SELECT COUNT(*) FROM song_artists"));
+        // Source order is kept
+        assertEquals(songs.get(size - 1).getId(), playlistDao.getOrderedSongIds(playlistId).get(size - 1));
+
+        // Importing the same list again adds nothing
+        start = SystemClock.elapsedRealtimeNanos();
+        playlistDao.importSongs(playlistId, songs, true);
+        elapsedMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+        Log.i(TAG, "importSongs(" + size + ") again: " + elapsedMs + " ms");
+
+        assertEquals(size, queryLong("SELECT COUNT(*) FROM songs"));
+        assertEquals(size, queryLong("SELECT COUNT(*) FROM playlist_song_cross_ref WHERE playlistId = " + playlistId));
+    }
+
+    private static List<Song> buildSongs(int size) {
+        List<Song> songs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Song song = new Song("song-" + i);
+            song.setSong("Song " + i);
+            song.setSingers("Artist " + (i % 50) + ", Guest " + (i % 7));
+            songs.add(song);
+        }
+        return songs;
+    }
+
+    private long queryLong(String sql) {
+        try (Cursor cursor = db.query(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
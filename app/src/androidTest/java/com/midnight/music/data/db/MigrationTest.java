@@ -0,0 +1,155 @@
+package com.midnight.music.data.db;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Migrates a v3 database (the oldest one with a migration path) to the current
+ * version and checks that the library survives. Opening the result through Room
+ * validates every table against the entities, so a migration that drifts from
+ * them fails here.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final int FIRST_VERSION = 3;
+
+    // The tables of the last release before migrations, as Room 2.6 created them
+    private static final String[] V3_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS `songs` (`id` TEXT NOT NULL, `song` TEXT, `singers` TEXT, "
+                    + "`album` TEXT, `albumUrl` TEXT, `duration` TEXT, `imageUrl` TEXT, `language` TEXT, "
+                    + "`downloadUrl` TEXT, `mediaUrl` TEXT, `year` TEXT, `lyrics` TEXT, `permaUrl` TEXT, "
+                    + "`label` TEXT, `hasLyrics` INTEGER NOT NULL, `image` TEXT, `isLiked` INTEGER NOT NULL, "
+                    + "`isDownloaded` INTEGER NOT NULL, `localPath` TEXT, `timestamp` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `playlists` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT, `createdAt` INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `playlist_song_cross_ref` (`playlistId` INTEGER NOT NULL, "
+                    + "`songId` TEXT NOT NULL, `addedAt` INTEGER NOT NULL, PRIMARY KEY(`playlistId`, `songId`), "
+                    + "FOREIGN KEY(`playlistId`) REFERENCES `playlists`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`songId`) REFERENCES `songs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_playlist_song_cross_ref_songId` ON `playlist_song_cross_ref` (`songId`)"
+    };
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrate3To10StepByStep() {
+        SupportSQLiteOpenHelper v3 = openV3Database();
+        SupportSQLiteDatabase db = v3.getWritableDatabase();
+        insertV3Library(db);
+
+        for (Migration migration : Migrations.ALL) {
+            migration.migrate(db);
+            db.setVersion(migration.endVersion);
+            switch (migration.endVersion) {
+                case 5:
+                    // Recents were carried over into play_history
+                    assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM play_history WHERE songId = 's1' AND playedAt = 500"));
+                    break;
+                case 7:
+                    // Existing songs were indexed for offline search
+                    assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM songs_fts WHERE songs_fts MATCH 'midnight'"));
+                    break;
+                case 9:
+                    // Songs keep their added order
+                    assertEquals(2000, queryLong(db, "SELECT position FROM playlist_song_cross_ref WHERE songId = 's1'"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        v3.close();
+
+        // Room validates the migrated tables against the entities when it opens
+        AppDatabase room = openRoom();
+        db = room.getOpenHelper().getWritableDatabase();
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM songs"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM playlists"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM playlist_song_cross_ref"));
+        assertEquals(0, queryLong(db, "SELECT COUNT(*) FROM sync_outbox"));
+        room.close();
+    }
+
+    @Test
+    public void migrate3To10AllAtOnce() {
+        SupportSQLiteOpenHelper v3 = openV3Database();
+        insertV3Library(v3.getWritableDatabase());
+        v3.close();
+
+        AppDatabase room = openRoom();
+        SupportSQLiteDatabase db = room.getOpenHelper().getWritableDatabase();
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM songs"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM playlist_song_cross_ref"));
+        room.close();
+    }
+
+    private SupportSQLiteOpenHelper openV3Database() {
+        SupportSQLiteOpenHelper.Configuration config = SupportSQLiteOpenHelper.Configuration.builder(context)
+                .name(TEST_DB)
+                .callback(new SupportSQLiteOpenHelper.Callback(FIRST_VERSION) {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        for (String sql : V3_SCHEMA) {
+                            db.execSQL(sql);
+                        }
+                    }
+
+                    @Override
+                    public void onUpgrade(SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    }
+                })
+                .build();
+        return new FrameworkSQLiteOpenHelperFactory().create(config);
+    }
+
+    private AppDatabase openRoom() {
+        return Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(Migrations.ALL)
+                .build();
+    }
+
+    // Two songs, one of them recently played, both in one playlist
+    private static void insertV3Library(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT INTO songs (id, song, singers, album, hasLyrics, isLiked, isDownloaded, timestamp) "
+                + "VALUES ('s1', 'Midnight City', 'M83', 'Hurry Up, We''re Dreaming', 0, 1, 0, 500)");
+        db.execSQL("INSERT INTO songs (id, song, singers, album, hasLyrics, isLiked, isDownloaded, timestamp) "
+                + "VALUES ('s2', 'Daylight', 'Matt and Kim', 'Grand', 0, 0, 0, 0)");
+        db.execSQL("INSERT INTO playlists (id, name, createdAt) VALUES (1, 'Liked Songs', 1000)");
+        db.execSQL("INSERT INTO playlist_song_cross_ref (playlistId, songId, addedAt) VALUES (1, 's1', 2000)");
+        db.execSQL("INSERT INTO playlist_song_cross_ref (playlistId, songId, addedAt) VALUES (1, 's2', 3000)");
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.midnight.music.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.midnight.music.data.db.AppDatabase;
+import com.midnight.music.data.model.Playlist;
+import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SyncOutboxEntry;
+import com.midnight.music.data.network.SupabaseDataService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Pushes an outbox against a MockWebServer: upserts are chunked, songs shared by
+ * several playlists go up once, and a failed chunk keeps the outbox rows for a retry.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CloudSyncPushTest {
+    private static final String USER_ID = "user-1";
+    private static final String SONGS_PATH = "/rest/v1/songs";
+    private static final String PLAYLIST_SONGS_PATH = "/rest/v1/playlist_songs";
+    // Every song is in both playlists
+    private static final int SONG_COUNT = 700;
+
+    private final Gson gson = new Gson();
+    private final List<RecordedUpsert> upserts = new ArrayList<>();
+    private MockWebServer server;
+    private AppDatabase db;
+    private CloudSyncManager syncManager;
+    // Requests whose body contains this string are answered with a 500
+    private volatile String failMarker;
+
+    private static final class RecordedUpsert {
+        final String path;
+        final JsonArray rows;
+
+        RecordedUpsert(String path, JsonArray rows) {
+            this.path = path;
+            this.rows = rows;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                String body = request.getBody().readUtf8();
+                String path = request.getPath().split("\\?")[0];
+                synchronized (upserts) {
+                    upserts.add(new RecordedUpsert(path, gson.fromJson(body, JsonArray.class)));
+                }
+                String marker = failMarker;
+                return new MockResponse().setResponseCode(marker != null && body.contains(marker) ? 500 : 201);
+            }
+        });
+        server.start();
+
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        SupabaseDataService dataService = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(SupabaseDataService.class);
+        syncManager = new CloudSyncManager(context, db, dataService);
+
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < SONG_COUNT; i++) {
+            Song song = new Song("song-" + i);
+            song.setSong("Song " + i);
+            songs.add(song);
+        }
+        List<SyncOutboxEntry> entries = new ArrayList<>();
+        for (String name : new String[] {"First", "Second"}) {
+            long playlistId = db.playlistDao().insert(new Playlist(name));
+            db.playlistDao().importSongs(playlistId, songs, false);
+            for (Song song : songs) {
+                entries.add(SyncOutboxEntry.playlistSong(playlistId, song.getId()));
+            }
+        }
+        db.syncOutboxDao().record(entries);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        db.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void pushesChunkedAndDeduplicated() {
+        syncManager.pushPending(USER_ID);
+
+        // 700 distinct songs: two requests, each song once
+        assertEquals(2, requestCount(SONGS_PATH));
+        assertEquals(SONG_COUNT, rowCount(SONGS_PATH));
+        assertEquals(SONG_COUNT, distinctIds(SONGS_PATH, "id").size());
+        // 1,400 playlist songs: three requests of at most PUSH_CHUNK_SIZE rows
+        assertEquals(3, requestCount(PLAYLIST_SONGS_PATH));
+        assertEquals(2 * SONG_COUNT, rowCount(PLAYLIST_SONGS_PATH));
+        for (RecordedUpsert upsert : upserts) {
+            assertTrue(upsert.rows.size() <= CloudSyncManager.PUSH_CHUNK_SIZE);
+        }
+
+        assertEquals(0, pendingPlaylistSongs());
+    }
+
+    @Test
+    public void failedPlaylistSongChunkKeepsOutbox() {
+        // Only playlist_songs rows carry song_id
+        failMarker = "\"song_id\":\"song-42\"";
+
+        syncManager.pushPending(USER_ID);
+
+        assertEquals(2, requestCount(SONGS_PATH));
+        assertEquals(3, requestCount(PLAYLIST_SONGS_PATH));
+        assertEquals(2 * SONG_COUNT, pendingPlaylistSongs());
+
+        // The retry pushes everything again and drains the outbox
+        failMarker = null;
+        syncManager.pushPending(USER_ID);
+        assertEquals(0, pendingPlaylistSongs());
+    }
+
+    @Test
+    public void failedSongChunkSkipsPlaylistSongs() {
+        // Songs go first, so no playlist row may refer to a song the cloud lacks
+        failMarker = "\"id\":\"song-42\"";
+
+        syncManager.pushPending(USER_ID);
+
+        assertEquals(2, requestCount(SONGS_PATH));
+        assertEquals(0, requestCount(PLAYLIST_SONGS_PATH));
+        assertEquals(2 * SONG_COUNT, pendingPlaylistSongs());
+    }
+
+    private int requestCount(String path) {
+        int count = 0;
+        for (RecordedUpsert upsert : upserts) {
+            if (upsert.path.equals(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int rowCount(String path) {
+        int count = 0;
+        for (RecordedUpsert upsert : upserts) {
+            if (upsert.path.equals(path)) {
+                count += upsert.rows.size();
+            }
+        }
+        return count;
+    }
+
+    private Set<String> distinctIds(String path, String idField) {
+        Set<String> ids = new HashSet<>();
+        for (RecordedUpsert upsert : upserts) {
+            if (upsert.path.equals(path)) {
+                for (JsonElement row : upsert.rows) {
+                    ids.add(row.getAsJsonObject().get(idField).getAsString());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private int pendingPlaylistSongs() {
+        return db.syncOutboxDao().getPending(SyncOutboxEntry.TABLE_PLAYLIST_SONGS).size();
+    }
+}
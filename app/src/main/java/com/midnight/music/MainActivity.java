@@ -35,6 +35,7 @@ import com.midnight.music.data.auth.SessionManager;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.data.repository.CloudSyncWorker;
+import com.midnight.music.data.repository.MusicRepository;
 import com.midnight.music.databinding.ActivityMainBinding;
 import com.midnight.music.player.MusicPlayerManager;
 import com.midnight.music.ui.player.PlayerActivity;
@@ -271,16 +272,23 @@ public class MainActivity extends AppCompatActivity {
                         .start();
 
                 Executors.newSingleThreadExecutor().execute(() -> {
-                    AppDatabase db = AppDatabase.getInstance(this);
-                    boolean isCurrentlyLiked = db.songDao().isSongLiked(currentSong.getId());
-                    boolean newLikedState = !isCurrentlyLiked;
-
-                    // Ensure the song exists in DB first
-                    currentSong.setLiked(newLikedState);
-                    currentSong.setTimestamp(System.currentTimeMillis());
-                    db.songDao().insert(currentSong);
+                    // The player's copy may be stale; toggle from the stored state.
+                    // The repository updates Liked Songs and queues the change for sync
+                    boolean isCurrentlyLiked = AppDatabase.getInstance(this).songDao()
+                            .isSongLiked(currentSong.getId());
+                    currentSong.setLiked(isCurrentlyLiked);
+                    MusicRepository.getInstance(this).toggleLikeSong(currentSong,
+                            new MusicRepository.LikeCallback() {
+                                @Override
+                                public void onComplete(boolean isLiked) {
+                                    mainHandler.post(() -> updateHeartButton(isLiked));
+                                }
 
-                    mainHandler.post(() -> updateHeartButton(newLikedState));
+                                @Override
+                                public void onError(Exception e) {
+                                    Log.e(TAG, "Error toggling favorite", e);
+                                }
+                            });
                 });
             } catch (Exception e) {
                 Log.e(TAG, "Error toggling favorite", e);
@@ -0,0 +1,14 @@
+package com.midnight.music;
+
+import android.app.Application;
+
+import com.midnight.music.data.network.ApiClients;
+
+public class MidnightMusicApp extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Before any request builds the shared client, so it gets its disk cache
+        ApiClients.init(this);
+    }
+}
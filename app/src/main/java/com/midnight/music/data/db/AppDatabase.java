@@ -7,7 +7,12 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 
+import com.midnight.music.data.model.DownloadTask;
+import com.midnight.music.data.model.PlayHistory;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SongArtist;
+import com.midnight.music.data.model.SongFts;
+import com.midnight.music.data.model.SyncOutboxEntry;
 import com.midnight.music.data.model.Playlist;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
 
@@ -15,10 +20,15 @@ import com.midnight.music.data.model.PlaylistSongCrossRef;
     entities = {
         Song.class, 
         Playlist.class, 
-        PlaylistSongCrossRef.class
+        PlaylistSongCrossRef.class,
+        DownloadTask.class,
+        PlayHistory.class,
+        SongFts.class,
+        SongArtist.class,
+        SyncOutboxEntry.class
     }, 
-    version = 3, 
-    exportSchema = false
+    version = 10, 
+    exportSchema = true
 )
 @TypeConverters({Converters.class})
 public abstract class AppDatabase extends RoomDatabase {
@@ -27,6 +37,10 @@ public abstract class AppDatabase extends RoomDatabase {
 
     public abstract SongDao songDao();
     public abstract PlaylistDao playlistDao();
+    public abstract DownloadTaskDao downloadTaskDao();
+    public abstract PlayHistoryDao playHistoryDao();
+    public abstract LibraryDao libraryDao();
+    public abstract SyncOutboxDao syncOutboxDao();
 
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
@@ -34,7 +48,9 @@ public abstract class AppDatabase extends RoomDatabase {
                     context.getApplicationContext(),
                     AppDatabase.class,
                     DATABASE_NAME)
-                    .fallbackToDestructiveMigration()
+                    .addMigrations(Migrations.ALL)
+                    // Only installs older than v3 have no migration path
+                    .fallbackToDestructiveMigrationFrom(1, 2)
                     .build();
         }
         return instance;
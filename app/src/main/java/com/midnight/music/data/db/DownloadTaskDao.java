@@ -0,0 +1,55 @@
+package com.midnight.music.data.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.midnight.music.data.model.DownloadTask;
+
+import java.util.List;
+
+@Dao
+public interface DownloadTaskDao {
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertAll(List<DownloadTask> tasks);
+
+    @Query("SELECT * FROM download_queue WHERE state = 0 AND nextAttemptAt <= :now ORDER BY enqueuedAt ASC LIMIT 1")
+    DownloadTask getNextQueued(long now);
+
+    @Query("UPDATE download_queue SET state = :state WHERE songId = :songId")
+    void updateState(String songId, int state);
+
+    /**
+     * Atomically takes the oldest runnable task off the queue and marks it running,
+     * so parallel workers never pick the same song.
+     */
+    @Transaction
+    default DownloadTask claimNext(long now) {
+        DownloadTask task = getNextQueued(now);
+        if (task != null) {
+            updateState(task.getSongId(), DownloadTask.STATE_RUNNING);
+            task.setState(DownloadTask.STATE_RUNNING);
+        }
+        return task;
+    }
+
+    @Query("UPDATE download_queue SET state = 0, attempts = :attempts, nextAttemptAt = :nextAttemptAt, "
+            + "downloadedBytes = :downloadedBytes, totalBytes = :totalBytes WHERE songId = :songId")
+    void scheduleRetry(String songId, int attempts, long nextAttemptAt, long downloadedBytes, long totalBytes);
+
+    // Failed tasks get a fresh set of attempts when the user asks again
+    @Query("UPDATE download_queue SET state = 0, attempts = 0, nextAttemptAt = 0 WHERE songId IN (:songIds) AND state = 2")
+    void requeueFailed(List<String> songIds);
+
+    // Nothing can still be running after a process restart
+    @Query("UPDATE download_queue SET state = 0 WHERE state = 1")
+    void resetRunning();
+
+    @Query("SELECT COUNT(*) FROM download_queue WHERE state = 0")
+    int getQueuedCount();
+
+    @Query("DELETE FROM download_queue WHERE songId = :songId")
+    void delete(String songId);
+}
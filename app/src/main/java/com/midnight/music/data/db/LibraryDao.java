@@ -0,0 +1,77 @@
+package com.midnight.music.data.db;
+
+import androidx.paging.PagingSource;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.midnight.music.data.model.AlbumSummary;
+import com.midnight.music.data.model.ArtistSummary;
+import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SongArtist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Album and artist views of the library, grouped in SQL.
+ */
+@Dao
+public interface LibraryDao {
+    // Songs that belong to the library: downloaded, or in a playlist (liked songs included)
+    String LIBRARY_FILTER = "(s.isDownloaded = 1 OR s.id IN (SELECT songId FROM playlist_song_cross_ref)) ";
+
+    int ARTIST_INDEX_CHUNK_SIZE = 500;
+
+    // Bare imageUrl/artist columns come from the row holding MAX(timestamp)
+    @Query("SELECT s.album AS name, s.singers AS artist, s.imageUrl, COUNT(*) AS songCount, "
+            + "COALESCE(SUM(CAST(s.duration AS INTEGER)), 0) AS totalDuration, "
+            + "MAX(s.timestamp) AS lastAddedAt "
+            + "FROM songs s WHERE s.album IS NOT NULL AND s.album != '' AND " + LIBRARY_FILTER
+            + "GROUP BY s.album ORDER BY s.album COLLATE NOCASE")
+    PagingSource<Integer, AlbumSummary> getAlbumsPaged();
+
+    @Query("SELECT a.artistKey, a.name, s.imageUrl, COUNT(*) AS songCount, "
+            + "COALESCE(SUM(CAST(s.duration AS INTEGER)), 0) AS totalDuration, "
+            + "MAX(s.timestamp) AS lastAddedAt "
+            + "FROM song_artists a INNER JOIN songs s ON s.id = a.songId "
+            + "WHERE " + LIBRARY_FILTER
+            + "GROUP BY a.artistKey ORDER BY a.artistKey")
+    PagingSource<Integer, ArtistSummary> getArtistsPaged();
+
+    // Keyset-paged scan of songs with singers but no artist rows yet
+    @Query("SELECT * FROM songs WHERE id > :afterId AND singers IS NOT NULL AND singers != '' "
+            + "AND NOT EXISTS (SELECT 1 FROM song_artists a WHERE a.songId = songs.id) "
+            + "ORDER BY id LIMIT :limit")
+    List<Song> getSongsWithoutArtists(String afterId, int limit);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertSongArtists(List<SongArtist> songArtists);
+
+    /**
+     * Splits the singers of every song that has no artist rows yet. One-time backfill
+     * for songs stored before v8; SongDao and PlaylistDao write the rows together
+     * with the song since then. Returns the number of songs indexed.
+     */
+    @Transaction
+    default int indexSongArtists() {
+        int indexed = 0;
+        String afterId = "";
+        List<Song> songs;
+        do {
+            songs = getSongsWithoutArtists(afterId, ARTIST_INDEX_CHUNK_SIZE);
+            List<SongArtist> rows = new ArrayList<>();
+            for (Song song : songs) {
+                rows.addAll(SongArtist.fromSong(song));
+                afterId = song.getId();
+            }
+            if (!rows.isEmpty()) {
+                insertSongArtists(rows);
+            }
+            indexed += songs.size();
+        } while (songs.size() == ARTIST_INDEX_CHUNK_SIZE);
+        return indexed;
+    }
+}
@@ -0,0 +1,141 @@
+package com.midnight.music.data.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Hand-written schema migrations, so schema changes keep the user's library.
+ */
+public final class Migrations {
+
+    private Migrations() {}
+
+    /**
+     * v4: persistent download queue.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `download_queue` ("
+                    + "`songId` TEXT NOT NULL, `title` TEXT, `mediaUrl` TEXT, "
+                    + "`state` INTEGER NOT NULL, `downloadedBytes` INTEGER NOT NULL, "
+                    + "`totalBytes` INTEGER NOT NULL, `attempts` INTEGER NOT NULL, "
+                    + "`nextAttemptAt` INTEGER NOT NULL, `enqueuedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`songId`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_download_queue_state_nextAttemptAt` "
+                    + "ON `download_queue` (`state`, `nextAttemptAt`)");
+        }
+    };
+
+    /**
+     * v5: play history moves out of songs.timestamp into its own append-only table.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `play_history` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`songId` TEXT NOT NULL, `playedAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_play_history_songId_playedAt` "
+                    + "ON `play_history` (`songId`, `playedAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_play_history_playedAt` "
+                    + "ON `play_history` (`playedAt`)");
+            // Carry over the existing recents
+            db.execSQL("INSERT INTO `play_history` (`songId`, `playedAt`) "
+                    + "SELECT `id`, `timestamp` FROM `songs` WHERE `timestamp` > 0 ORDER BY `timestamp`");
+        }
+    };
+
+    /**
+     * v6: composite indices for the liked and downloaded library queries.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_songs_isLiked_timestamp` "
+                    + "ON `songs` (`isLiked`, `timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_songs_isDownloaded_timestamp` "
+                    + "ON `songs` (`isDownloaded`, `timestamp`)");
+        }
+    };
+
+    /**
+     * v7: full-text index over stored songs for offline search. The triggers are the
+     * ones Room generates for an external-content FTS entity.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `songs_fts` USING FTS4("
+                    + "`song` TEXT, `singers` TEXT, `album` TEXT, tokenize=unicode61, content=`songs`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `songs` BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `songs` BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `songs` BEGIN INSERT INTO `songs_fts`(`docid`, `song`, `singers`, `album`) "
+                    + "VALUES (NEW.`rowid`, NEW.`song`, NEW.`singers`, NEW.`album`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `songs` BEGIN INSERT INTO `songs_fts`(`docid`, `song`, `singers`, `album`) "
+                    + "VALUES (NEW.`rowid`, NEW.`song`, NEW.`singers`, NEW.`album`); END");
+            // Index the songs that are already stored
+            db.execSQL("INSERT INTO `songs_fts`(`songs_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * v8: song-artist join table and an album index for the library tabs. The join
+     * table is backfilled once by LibraryDao.indexSongArtists on the next start.
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `song_artists` ("
+                    + "`songId` TEXT NOT NULL, `artistKey` TEXT NOT NULL, `name` TEXT, "
+                    + "PRIMARY KEY(`songId`, `artistKey`), "
+                    + "FOREIGN KEY(`songId`) REFERENCES `songs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_song_artists_artistKey` "
+                    + "ON `song_artists` (`artistKey`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_songs_album` ON `songs` (`album`)");
+        }
+    };
+
+    /**
+     * v9: sparse manual ordering of playlist songs. Existing songs keep their added
+     * order; positions are respaced the first time a move needs room.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `playlist_song_cross_ref` ADD COLUMN `position` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `playlist_song_cross_ref` SET `position` = `addedAt`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_playlist_song_cross_ref_playlistId_position` "
+                    + "ON `playlist_song_cross_ref` (`playlistId`, `position`)");
+        }
+    };
+
+    /**
+     * v10: outbox of local changes waiting to be pushed to the cloud.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_outbox` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `tableName` TEXT NOT NULL, "
+                    + "`rowKey` TEXT NOT NULL, `createdAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_sync_outbox_tableName_rowKey` "
+                    + "ON `sync_outbox` (`tableName`, `rowKey`)");
+        }
+    };
+
+    public static final Migration[] ALL = {
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10
+    };
+}
@@ -0,0 +1,30 @@
+package com.midnight.music.data.db;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.midnight.music.data.model.PlayHistory;
+import com.midnight.music.data.model.Song;
+
+import java.util.List;
+
+@Dao
+public interface PlayHistoryDao {
+    @Insert
+    long insert(PlayHistory play);
+
+    /**
+     * Most recently played distinct songs, newest first.
+     */
+    @Query("SELECT songs.* FROM songs INNER JOIN ("
+            + "SELECT songId, MAX(playedAt) AS lastPlayed FROM play_history "
+            + "GROUP BY songId ORDER BY lastPlayed DESC LIMIT :limit"
+            + ") AS recent ON songs.id = recent.songId ORDER BY recent.lastPlayed DESC")
+    LiveData<List<Song>> getRecentSongs(int limit);
+
+    // Keeps only the newest :keep plays
+    @Query("DELETE FROM play_history WHERE id NOT IN (SELECT id FROM play_history ORDER BY id DESC LIMIT :keep)")
+    void trimTo(int keep);
+}
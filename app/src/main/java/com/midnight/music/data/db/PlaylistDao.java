@@ -1,6 +1,7 @@
 package com.midnight.music.data.db;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -10,11 +11,17 @@ import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.midnight.music.data.model.Playlist;
+import com.midnight.music.data.model.PlaylistMembership;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.PlaylistWithSongs;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SongArtist;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface PlaylistDao {
@@ -32,17 +39,225 @@ public interface PlaylistDao {
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insert(PlaylistSongCrossRef crossRef);
+
+    /**
+     * Adds a song at the end of its playlist (or moves it there if already present).
+     */
+    @Transaction
+    default long append(PlaylistSongCrossRef crossRef) {
+        crossRef.setPosition(getMaxPosition(crossRef.getPlaylistId()) + PlaylistSongCrossRef.POSITION_GAP);
+        return insert(crossRef);
+    }
+
+    @Query("SELECT COALESCE(MAX(position), 0) FROM playlist_song_cross_ref WHERE playlistId = :playlistId")
+    long getMaxPosition(long playlistId);
+
+    // Positions of the two songs around slot :offset once :songId is taken out
+    @Query("SELECT position FROM playlist_song_cross_ref WHERE playlistId = :playlistId AND songId != :songId "
+            + "ORDER BY position, addedAt LIMIT 2 OFFSET :offset")
+    List<Long> getPositionsAround(long playlistId, String songId, int offset);
+
+    @Query("UPDATE playlist_song_cross_ref SET position = :position WHERE playlistId = :playlistId AND songId = :songId")
+    void updatePosition(long playlistId, String songId, long position);
+
+    @Query("SELECT songId FROM playlist_song_cross_ref WHERE playlistId = :playlistId ORDER BY position, addedAt")
+    List<String> getOrderedSongIds(long playlistId);
+
+    // Below this spacing the playlist is rebalanced as part of the move
+    long MIN_POSITION_GAP = 16;
+
+    /**
+     * Moves a song to {@code toIndex} by giving it a position between its new
+     * neighbours, which usually writes a single row. When the gap it landed in is
+     * nearly used up, the whole playlist is {@link #rebalance rebalanced} in the same
+     * transaction. Returns the ids of every song whose position was rewritten.
+     */
+    @Transaction
+    default List<String> moveSong(long playlistId, String songId, int toIndex) {
+        List<String> rewritten = new ArrayList<>();
+        Long position = positionForSlot(playlistId, songId, toIndex);
+        if (position == null) {
+            // No room left between the neighbours: respace once and retry
+            rewritten = rebalance(playlistId);
+            position = positionForSlot(playlistId, songId, toIndex);
+        }
+        if (position == null) {
+            return rewritten;
+        }
+        updatePosition(playlistId, songId, position);
+        if (!rewritten.contains(songId)) {
+            rewritten.add(songId);
+        }
+        List<Long> around = getPositionsAround(playlistId, songId, Math.max(0, toIndex - 1));
+        for (long neighbour : around) {
+            if (Math.abs(neighbour - position) < MIN_POSITION_GAP) {
+                return rebalance(playlistId);
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * The position for slot {@code toIndex}, or null when the neighbours are adjacent.
+     */
+    default Long positionForSlot(long playlistId, String songId, int toIndex) {
+        if (toIndex <= 0) {
+            List<Long> first = getPositionsAround(playlistId, songId, 0);
+            return first.isEmpty() ? PlaylistSongCrossRef.POSITION_GAP : first.get(0) - PlaylistSongCrossRef.POSITION_GAP;
+        }
+        List<Long> around = getPositionsAround(playlistId, songId, toIndex - 1);
+        if (around.isEmpty()) {
+            return getMaxPosition(playlistId) + PlaylistSongCrossRef.POSITION_GAP;
+        }
+        long before = around.get(0);
+        if (around.size() == 1) {
+            return before + PlaylistSongCrossRef.POSITION_GAP;
+        }
+        long after = around.get(1);
+        return after - before >= 2 ? before + (after - before) / 2 : null;
+    }
+
+    /**
+     * Respaces the positions of a playlist evenly, keeping its order. Rewrites every
+     * row, so it only runs when a move finds its gap used up. Returns the song ids
+     * in their new order.
+     */
+    @Transaction
+    default List<String> rebalance(long playlistId) {
+        List<String> songIds = getOrderedSongIds(playlistId);
+        for (int i = 0; i < songIds.size(); i++) {
+            updatePosition(playlistId, songIds.get(i), (i + 1) * PlaylistSongCrossRef.POSITION_GAP);
+        }
+        return songIds;
+    }
     
     @Query("DELETE FROM playlist_song_cross_ref WHERE playlistId = :playlistId AND songId = :songId")
     void removeSongFromPlaylist(long playlistId, String songId);
 
+    // Stays below SQLite's 999 bound-variable limit for IN (...) lists
+    int IMPORT_CHUNK_SIZE = 500;
+
+    // Row id per song, -1 where the song was already stored
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertSongsIfAbsent(List<Song> songs);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertSongArtists(List<SongArtist> songArtists);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertCrossRefsIfAbsent(List<PlaylistSongCrossRef> crossRefs);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertCrossRefs(List<PlaylistSongCrossRef> crossRefs);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertPlaylistsIfAbsent(List<Playlist> playlists);
+
+    @Query("SELECT id FROM playlists WHERE id IN (:playlistIds)")
+    List<Long> getExistingPlaylistIds(List<Long> playlistIds);
+
+    @Query("UPDATE songs SET isLiked = 1 WHERE id IN (:songIds) AND isLiked = 0")
+    void markLiked(List<String> songIds);
+
+    /**
+     * Adds {@code songs} to a playlist in one transaction: songs that are already stored
+     * are left untouched, and songs already in the playlist keep their place. New songs
+     * get their song_artists rows in the same transaction. With {@code like} set, every
+     * imported song also ends up liked.
+     */
+    @Transaction
+    default void importSongs(long playlistId, List<Song> songs, boolean like) {
+        // Duplicates in the source list collapse onto their first occurrence
+        Map<String, Song> unique = new LinkedHashMap<>();
+        for (Song song : songs) {
+            if (song != null && song.getId() != null && !unique.containsKey(song.getId())) {
+                unique.put(song.getId(), song);
+            }
+        }
+        List<Song> ordered = new ArrayList<>(unique.values());
+        long addedAt = System.currentTimeMillis();
+        long position = getMaxPosition(playlistId);
+
+        for (int start = 0; start < ordered.size(); start += IMPORT_CHUNK_SIZE) {
+            List<Song> chunk = ordered.subList(start, Math.min(start + IMPORT_CHUNK_SIZE, ordered.size()));
+            List<String> ids = new ArrayList<>(chunk.size());
+            List<PlaylistSongCrossRef> crossRefs = new ArrayList<>(chunk.size());
+            for (Song song : chunk) {
+                ids.add(song.getId());
+                PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(playlistId, song.getId());
+                crossRef.setAddedAt(addedAt++);
+                // Appended after the current last song, in source order
+                position += PlaylistSongCrossRef.POSITION_GAP;
+                crossRef.setPosition(position);
+                crossRefs.add(crossRef);
+            }
+            long[] rowIds = insertSongsIfAbsent(chunk);
+            List<SongArtist> artists = new ArrayList<>();
+            for (int i = 0; i < rowIds.length; i++) {
+                if (rowIds[i] != -1) {
+                    artists.addAll(SongArtist.fromSong(chunk.get(i)));
+                }
+            }
+            if (!artists.isEmpty()) {
+                insertSongArtists(artists);
+            }
+            if (like) {
+                markLiked(ids);
+            }
+            insertCrossRefsIfAbsent(crossRefs);
+        }
+    }
+
     @Transaction
     @Query("SELECT * FROM playlists WHERE id = :playlistId")
     LiveData<PlaylistWithSongs> getPlaylistWithSongs(long playlistId);
     
     @Transaction
-    @Query("SELECT * FROM playlists ORDER BY createdAt DESC")
-    LiveData<List<PlaylistWithSongs>> getAllPlaylistsWithSongs();
+    @Query("SELECT * FROM playlists WHERE id = :playlistId")
+    PlaylistWithSongs getPlaylistWithSongsSync(long playlistId);
+
+    // Songs of a playlist in their (user-arranged) order
+    @Query("SELECT songs.* FROM songs INNER JOIN playlist_song_cross_ref c ON c.songId = songs.id "
+            + "WHERE c.playlistId = :playlistId ORDER BY c.position, c.addedAt")
+    PagingSource<Integer, Song> getPlaylistSongsPaged(long playlistId);
+
+    @Query("SELECT songs.* FROM songs INNER JOIN playlist_song_cross_ref c ON c.songId = songs.id "
+            + "WHERE c.playlistId = :playlistId ORDER BY c.position, c.addedAt")
+    List<Song> getPlaylistSongsSync(long playlistId);
+
+    // Shared by the summary queries: one row per playlist, the first four covers in playlist order
+    String SUMMARY_SELECT = "SELECT p.id, p.name, p.createdAt, "
+            + "COUNT(c.songId) AS songCount, "
+            + "COALESCE(SUM(CAST(s.duration AS INTEGER)), 0) AS totalDuration, "
+            + "COALESCE(SUM(s.isDownloaded), 0) AS downloadedCount, "
+            + "(SELECT group_concat(imageUrl, char(10)) FROM ("
+            + "SELECT s2.imageUrl FROM playlist_song_cross_ref c2 "
+            + "INNER JOIN songs s2 ON s2.id = c2.songId "
+            + "WHERE c2.playlistId = p.id AND s2.imageUrl IS NOT NULL AND s2.imageUrl != '' "
+            + "ORDER BY c2.position, c2.addedAt LIMIT 4)) AS coverUrls "
+            + "FROM playlists p "
+            + "LEFT JOIN playlist_song_cross_ref c ON c.playlistId = p.id "
+            + "LEFT JOIN songs s ON s.id = c.songId ";
+
+    /**
+     * Summaries of every playlist except {@code excludeName}, newest first.
+     */
+    @Query(SUMMARY_SELECT + "WHERE p.name != :excludeName GROUP BY p.id ORDER BY p.createdAt DESC")
+    LiveData<List<PlaylistSummary>> getPlaylistSummaries(String excludeName);
+
+    @Query(SUMMARY_SELECT + "GROUP BY p.id ORDER BY p.createdAt DESC LIMIT :limit")
+    LiveData<List<PlaylistSummary>> getRecentPlaylistSummaries(int limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.name = :name GROUP BY p.id LIMIT 1")
+    LiveData<PlaylistSummary> getPlaylistSummaryByName(String name);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id = :playlistId GROUP BY p.id")
+    LiveData<PlaylistSummary> getPlaylistSummary(long playlistId);
+
+    @Query("SELECT p.id, p.name, EXISTS(SELECT 1 FROM playlist_song_cross_ref c "
+            + "WHERE c.playlistId = p.id AND c.songId = :songId) AS containsSong "
+            + "FROM playlists p ORDER BY p.createdAt DESC")
+    LiveData<List<PlaylistMembership>> getPlaylistMemberships(String songId);
     
     @Query("SELECT * FROM playlists WHERE name = :name LIMIT 1")
     LiveData<Playlist> getPlaylistByName(String name);
@@ -83,4 +298,10 @@ public interface PlaylistDao {
     @Transaction
     @Query("SELECT * FROM playlists ORDER BY createdAt DESC")
     List<PlaylistWithSongs> getAllPlaylistsWithSongsSync();
+
+    @Query("SELECT * FROM playlist_song_cross_ref")
+    List<PlaylistSongCrossRef> getAllCrossRefsSync();
+
+    @Query("SELECT * FROM playlist_song_cross_ref WHERE playlistId = :playlistId AND songId = :songId LIMIT 1")
+    PlaylistSongCrossRef getCrossRefSync(long playlistId, String songId);
 }
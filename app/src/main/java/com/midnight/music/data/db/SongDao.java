@@ -1,27 +1,115 @@
 package com.midnight.music.data.db;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SongArtist;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Songs and their song_artists rows. Every write that can change {@code singers}
+ * rewrites the song's artist rows in the same transaction.
+ */
 @Dao
 public interface SongDao {
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insert(Song song);
+    // Stays below SQLite's 999 bound-variable limit for IN (...) lists
+    int ARTIST_CHUNK_SIZE = 500;
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertAll(List<Song> songs);
+    void insertRows(List<Song> songs);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertRowsIfAbsent(List<Song> songs);
 
     @Update
-    void update(Song song);
+    void updateRows(List<Song> songs);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertSongArtists(List<SongArtist> songArtists);
+
+    @Query("DELETE FROM song_artists WHERE songId IN (:songIds)")
+    void deleteSongArtists(List<String> songIds);
+
+    @Transaction
+    default void insert(Song song) {
+        insertAll(Collections.singletonList(song));
+    }
+
+    @Transaction
+    default void insertAll(List<Song> songs) {
+        insertRows(songs);
+        replaceArtists(songs);
+    }
+
+    /**
+     * No-op (and no table invalidation) if the song is already stored.
+     * Returns the new row id, or -1 if the song was already there.
+     */
+    @Transaction
+    default long insertIfAbsent(Song song) {
+        return insertAllIfAbsent(Collections.singletonList(song))[0];
+    }
+
+    /**
+     * Inserts the songs that aren't stored yet, leaving existing ones untouched.
+     * Returns the row id per song, -1 for songs that were already there.
+     */
+    @Transaction
+    default long[] insertAllIfAbsent(List<Song> songs) {
+        long[] rowIds = insertRowsIfAbsent(songs);
+        List<SongArtist> rows = new ArrayList<>();
+        for (int i = 0; i < rowIds.length; i++) {
+            if (rowIds[i] != -1) {
+                rows.addAll(SongArtist.fromSong(songs.get(i)));
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertSongArtists(rows);
+        }
+        return rowIds;
+    }
+
+    @Transaction
+    default void update(Song song) {
+        updateAll(Collections.singletonList(song));
+    }
+
+    @Transaction
+    default void updateAll(List<Song> songs) {
+        updateRows(songs);
+        replaceArtists(songs);
+    }
+
+    /**
+     * Rewrites the artist rows of {@code songs} from their current singers.
+     * Caller runs inside a transaction.
+     */
+    default void replaceArtists(List<Song> songs) {
+        for (int start = 0; start < songs.size(); start += ARTIST_CHUNK_SIZE) {
+            List<Song> chunk = songs.subList(start, Math.min(start + ARTIST_CHUNK_SIZE, songs.size()));
+            List<String> ids = new ArrayList<>(chunk.size());
+            List<SongArtist> rows = new ArrayList<>();
+            for (Song song : chunk) {
+                ids.add(song.getId());
+                rows.addAll(SongArtist.fromSong(song));
+            }
+            deleteSongArtists(ids);
+            if (!rows.isEmpty()) {
+                insertSongArtists(rows);
+            }
+        }
+    }
 
     @Delete
     void delete(Song song);
@@ -44,6 +132,12 @@ public interface SongDao {
     @Query("SELECT * FROM songs WHERE id IN (:songIds)")
     LiveData<List<Song>> getSongsByIds(List<String> songIds);
 
+    @Query("SELECT * FROM songs WHERE id IN (:songIds)")
+    List<Song> getSongsByIdsSync(List<String> songIds);
+
+    @Query("SELECT id FROM songs WHERE id IN (:songIds)")
+    List<String> getExistingSongIds(List<String> songIds);
+
     @Query("UPDATE songs SET isLiked = :isLiked WHERE id = :songId")
     void updateLikedStatus(String songId, boolean isLiked);
 
@@ -53,11 +147,17 @@ public interface SongDao {
     @Query("DELETE FROM songs WHERE isLiked = 0 AND isDownloaded = 0")
     void deleteUnlikedSongs();
 
-    @Query("SELECT * FROM songs WHERE timestamp > 0 ORDER BY timestamp DESC LIMIT :limit")
-    LiveData<List<Song>> getRecentSongs(int limit);
-
     @Query("SELECT * FROM songs WHERE isDownloaded = 1 ORDER BY timestamp DESC")
-    LiveData<List<Song>> getDownloadedSongs();
+    PagingSource<Integer, Song> getDownloadedSongsPaged();
+
+    // Full-text match over title/singers/album. Titles starting with the query rank
+    // first, then songs that play offline, then liked ones.
+    @Query("SELECT songs.* FROM songs JOIN songs_fts ON songs.rowid = songs_fts.rowid "
+            + "WHERE songs_fts MATCH :match "
+            + "ORDER BY (songs.song LIKE :prefix || '%') DESC, songs.isDownloaded DESC, "
+            + "songs.isLiked DESC, songs.song COLLATE NOCASE "
+            + "LIMIT :limit")
+    List<Song> searchLocal(String match, String prefix, int limit);
 
     @Query("SELECT * FROM songs WHERE isDownloaded = 1 ORDER BY timestamp DESC")
     List<Song> getDownloadedSongsSync();
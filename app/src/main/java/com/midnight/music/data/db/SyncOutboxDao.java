@@ -0,0 +1,26 @@
+package com.midnight.music.data.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.midnight.music.data.model.SyncOutboxEntry;
+
+import java.util.List;
+
+@Dao
+public interface SyncOutboxDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void record(SyncOutboxEntry entry);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void record(List<SyncOutboxEntry> entries);
+
+    @Query("SELECT * FROM sync_outbox WHERE tableName = :tableName ORDER BY id")
+    List<SyncOutboxEntry> getPending(String tableName);
+
+    // Entries re-recorded after the read got a larger id and stay for the next push
+    @Query("DELETE FROM sync_outbox WHERE tableName = :tableName AND id <= :maxId")
+    void removePushed(String tableName, long maxId);
+}
@@ -0,0 +1,30 @@
+package com.midnight.music.data.model;
+
+import com.midnight.music.models.Album;
+
+/**
+ * One album of the library, aggregated in SQL from the songs the user keeps
+ * (downloaded or in a playlist).
+ */
+public class AlbumSummary {
+    public String name;
+    // Singers of the most recently added song, used as the album's artist line
+    public String artist;
+    // Artwork of the most recently added song
+    public String imageUrl;
+    public int songCount;
+    // Seconds
+    public long totalDuration;
+    public long lastAddedAt;
+
+    public String getFormattedSongCount() {
+        return songCount + (songCount == 1 ? " song" : " songs");
+    }
+
+    public Album toAlbum() {
+        String subtitle = artist != null && !artist.isEmpty()
+                ? artist + " • " + getFormattedSongCount()
+                : getFormattedSongCount();
+        return new Album(name, name, subtitle, imageUrl, "album");
+    }
+}
@@ -0,0 +1,32 @@
+package com.midnight.music.data.model;
+
+import com.midnight.music.models.Album;
+
+/**
+ * One artist of the library, aggregated in SQL over {@link SongArtist} rows of the
+ * songs the user keeps (downloaded or in a playlist).
+ */
+public class ArtistSummary {
+    public String artistKey;
+    public String name;
+    // Artwork of the artist's most recently added song
+    public String imageUrl;
+    public int songCount;
+    // Seconds
+    public long totalDuration;
+    public long lastAddedAt;
+
+    public String getFormattedSongCount() {
+        return songCount + (songCount == 1 ? " song" : " songs");
+    }
+
+    public String getFormattedDuration() {
+        long minutes = totalDuration / 60;
+        return minutes >= 60 ? (minutes / 60) + "h " + (minutes % 60) + "m" : minutes + "m";
+    }
+
+    public Album toAlbum() {
+        return new Album(artistKey, name, getFormattedSongCount() + " • " + getFormattedDuration(),
+                imageUrl, "artist");
+    }
+}
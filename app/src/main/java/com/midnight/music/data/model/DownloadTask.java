@@ -0,0 +1,80 @@
+package com.midnight.music.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A song waiting in (or running from) the persistent download queue.
+ * Rows survive process death; the partially written file is resumed from its
+ * current length with an HTTP Range request.
+ */
+@Entity(
+    tableName = "download_queue",
+    indices = {
+        @Index(value = {"state", "nextAttemptAt"})
+    }
+)
+public class DownloadTask {
+    public static final int STATE_QUEUED = 0;
+    public static final int STATE_RUNNING = 1;
+    public static final int STATE_FAILED = 2;
+
+    @PrimaryKey
+    @NonNull
+    private String songId;
+
+    private String title;
+    private String mediaUrl;
+    private int state;
+    private long downloadedBytes;
+    private long totalBytes;
+    private int attempts;
+
+    // Earliest time (epoch ms) a queued task may be retried after a failure
+    private long nextAttemptAt;
+    private long enqueuedAt;
+
+    public DownloadTask(@NonNull String songId) {
+        this.songId = songId;
+        this.state = STATE_QUEUED;
+        this.enqueuedAt = System.currentTimeMillis();
+    }
+
+    public static DownloadTask fromSong(Song song) {
+        DownloadTask task = new DownloadTask(song.getId());
+        task.setTitle(song.getSong());
+        task.setMediaUrl(song.getMediaUrl());
+        return task;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getSongId() { return songId; }
+    public void setSongId(@NonNull String songId) { this.songId = songId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMediaUrl() { return mediaUrl; }
+    public void setMediaUrl(String mediaUrl) { this.mediaUrl = mediaUrl; }
+
+    public int getState() { return state; }
+    public void setState(int state) { this.state = state; }
+
+    public long getDownloadedBytes() { return downloadedBytes; }
+    public void setDownloadedBytes(long downloadedBytes) { this.downloadedBytes = downloadedBytes; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public long getEnqueuedAt() { return enqueuedAt; }
+    public void setEnqueuedAt(long enqueuedAt) { this.enqueuedAt = enqueuedAt; }
+}
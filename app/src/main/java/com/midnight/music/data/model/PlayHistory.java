@@ -0,0 +1,43 @@
+package com.midnight.music.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One play of a song. The table is append-only, so recording a play never touches
+ * the songs table (and never re-runs the queries observing it).
+ */
+@Entity(
+    tableName = "play_history",
+    indices = {
+        @Index(value = {"songId", "playedAt"}),
+        @Index(value = {"playedAt"})
+    }
+)
+public class PlayHistory {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String songId;
+
+    private long playedAt;
+
+    public PlayHistory(@NonNull String songId, long playedAt) {
+        this.songId = songId;
+        this.playedAt = playedAt;
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getSongId() { return songId; }
+    public void setSongId(@NonNull String songId) { this.songId = songId; }
+
+    public long getPlayedAt() { return playedAt; }
+    public void setPlayedAt(long playedAt) { this.playedAt = playedAt; }
+}
@@ -0,0 +1,10 @@
+package com.midnight.music.data.model;
+
+/**
+ * A playlist and whether a given song is in it, for "add to playlist" pickers.
+ */
+public class PlaylistMembership {
+    public long id;
+    public String name;
+    public boolean containsSong;
+}
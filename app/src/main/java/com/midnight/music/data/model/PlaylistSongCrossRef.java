@@ -1,6 +1,7 @@
 package com.midnight.music.data.model;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
@@ -9,7 +10,8 @@ import androidx.room.Index;
     tableName = "playlist_song_cross_ref",
     primaryKeys = {"playlistId", "songId"},
     indices = {
-        @Index("songId")
+        @Index("songId"),
+        @Index(value = {"playlistId", "position"})
     },
     foreignKeys = {
         @ForeignKey(
@@ -27,6 +29,10 @@ import androidx.room.Index;
     }
 )
 public class PlaylistSongCrossRef {
+    // Spacing of positions: a song can be moved between the same two neighbours about
+    // 20 times (halving the gap each time) before the playlist needs rebalancing
+    public static final long POSITION_GAP = 1L << 20;
+
     private long playlistId;
     
     @NonNull
@@ -34,6 +40,10 @@ public class PlaylistSongCrossRef {
     
     private long addedAt;
 
+    // Sort key within the playlist. Sparse, so a move rewrites only the moved row.
+    @ColumnInfo(defaultValue = "0")
+    private long position;
+
     public PlaylistSongCrossRef(long playlistId, @NonNull String songId) {
         this.playlistId = playlistId;
         this.songId = songId;
@@ -64,4 +74,12 @@ public class PlaylistSongCrossRef {
     public void setAddedAt(long addedAt) {
         this.addedAt = addedAt;
     }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
 } 
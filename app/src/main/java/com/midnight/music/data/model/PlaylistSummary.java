@@ -0,0 +1,64 @@
+package com.midnight.music.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a playlist list item shows: name, song count, total duration and a few cover
+ * URLs, computed in SQL. Use {@link PlaylistWithSongs} only where the songs
+ * themselves are needed.
+ */
+public class PlaylistSummary {
+    // Separator of the concatenated cover URLs in the coverUrls column
+    public static final String COVER_SEPARATOR = "\n";
+
+    public long id;
+    public String name;
+    public long createdAt;
+    public int songCount;
+    // Seconds
+    public long totalDuration;
+    public int downloadedCount;
+    public String coverUrls;
+
+    public int getSongCount() {
+        return songCount;
+    }
+
+    public boolean isFullyDownloaded() {
+        return songCount > 0 && downloadedCount >= songCount;
+    }
+
+    public String getFormattedSongCount() {
+        return songCount + (songCount == 1 ? " song" : " songs");
+    }
+
+    public String getFormattedDuration() {
+        long minutes = totalDuration / 60;
+        return minutes >= 60 ? (minutes / 60) + "h " + (minutes % 60) + "m" : minutes + "m";
+    }
+
+    public List<String> getImageUrls(int max) {
+        if (coverUrls == null || coverUrls.isEmpty()) {
+            return null;
+        }
+        List<String> urls = new ArrayList<>(Arrays.asList(coverUrls.split(COVER_SEPARATOR)));
+        return urls.size() > max ? urls.subList(0, max) : urls;
+    }
+
+    public String getFirstImageUrl() {
+        List<String> urls = getImageUrls(1);
+        return urls != null && !urls.isEmpty() ? urls.get(0) : null;
+    }
+
+    /**
+     * A detached entity for update/delete calls, which only need the id.
+     */
+    public Playlist toPlaylist() {
+        Playlist playlist = new Playlist(name);
+        playlist.setId(id);
+        playlist.setCreatedAt(createdAt);
+        return playlist;
+    }
+}
@@ -2,10 +2,20 @@ package com.midnight.music.data.model;
 
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import com.google.gson.annotations.SerializedName;
 
-@Entity(tableName = "songs")
+@Entity(
+    tableName = "songs",
+    indices = {
+        // Library screens: WHERE isLiked/isDownloaded = 1 ORDER BY timestamp DESC
+        @Index(value = {"isLiked", "timestamp"}),
+        @Index(value = {"isDownloaded", "timestamp"}),
+        // Albums tab: GROUP BY album
+        @Index(value = {"album"})
+    }
+)
 public class Song {
     @PrimaryKey
     @NonNull
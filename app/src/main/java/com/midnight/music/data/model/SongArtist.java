@@ -0,0 +1,80 @@
+package com.midnight.music.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One credited singer of a song, split out of the comma-joined {@code singers} string
+ * so artists can be grouped in SQL. Rows go away with their song.
+ */
+@Entity(
+    tableName = "song_artists",
+    primaryKeys = {"songId", "artistKey"},
+    indices = {
+        @Index("artistKey")
+    },
+    foreignKeys = {
+        @ForeignKey(
+            entity = Song.class,
+            parentColumns = "id",
+            childColumns = "songId",
+            onDelete = ForeignKey.CASCADE
+        )
+    }
+)
+public class SongArtist {
+    @NonNull
+    private String songId;
+
+    // Normalized name (trimmed, single spaces, lower case) that artists are grouped by
+    @NonNull
+    private String artistKey;
+
+    // Name as credited
+    private String name;
+
+    public SongArtist(@NonNull String songId, @NonNull String artistKey, String name) {
+        this.songId = songId;
+        this.artistKey = artistKey;
+        this.name = name;
+    }
+
+    /**
+     * Splits the singers of {@code song} into one row per distinct artist.
+     */
+    public static List<SongArtist> fromSong(Song song) {
+        Map<String, SongArtist> artists = new LinkedHashMap<>();
+        if (song.getSingers() != null) {
+            for (String part : song.getSingers().split(",")) {
+                String name = part.trim().replaceAll("\\s+", " ");
+                if (name.isEmpty()) {
+                    continue;
+                }
+                String key = name.toLowerCase(Locale.ROOT);
+                if (!artists.containsKey(key)) {
+                    artists.put(key, new SongArtist(song.getId(), key, name));
+                }
+            }
+        }
+        return new ArrayList<>(artists.values());
+    }
+
+    @NonNull
+    public String getSongId() { return songId; }
+    public void setSongId(@NonNull String songId) { this.songId = songId; }
+
+    @NonNull
+    public String getArtistKey() { return artistKey; }
+    public void setArtistKey(@NonNull String artistKey) { this.artistKey = artistKey; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+}
@@ -0,0 +1,27 @@
+package com.midnight.music.data.model;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text index over the title, singers and album of stored songs, used for offline
+ * search. It is an external-content table: Room keeps it in sync with {@code songs}
+ * through triggers, and rows are joined back to songs on rowid.
+ */
+@Fts4(contentEntity = Song.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "songs_fts")
+public class SongFts {
+    private String song;
+    private String singers;
+    private String album;
+
+    public String getSong() { return song; }
+    public void setSong(String song) { this.song = song; }
+
+    public String getSingers() { return singers; }
+    public void setSingers(String singers) { this.singers = singers; }
+
+    public String getAlbum() { return album; }
+    public void setAlbum(String album) { this.album = album; }
+}
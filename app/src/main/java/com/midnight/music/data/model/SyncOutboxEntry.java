@@ -0,0 +1,69 @@
+package com.midnight.music.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A local row changed since the last cloud push. Recorded in the same transaction as
+ * the change; the push sends the row's state at push time (upsert if it still exists,
+ * delete if not), so there is at most one entry per row and like -> unlike -> like
+ * collapses into a single upsert.
+ */
+@Entity(
+    tableName = "sync_outbox",
+    indices = {
+        @Index(value = {"tableName", "rowKey"}, unique = true)
+    }
+)
+public class SyncOutboxEntry {
+    public static final String TABLE_SONGS = "songs";
+    public static final String TABLE_PLAYLISTS = "playlists";
+    public static final String TABLE_PLAYLIST_SONGS = "playlist_songs";
+
+    // Re-recording a row replaces its entry, giving it a new id
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String tableName;
+
+    @NonNull
+    private String rowKey;
+
+    private long createdAt;
+
+    public SyncOutboxEntry(@NonNull String tableName, @NonNull String rowKey) {
+        this.tableName = tableName;
+        this.rowKey = rowKey;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public static SyncOutboxEntry song(String songId) {
+        return new SyncOutboxEntry(TABLE_SONGS, songId);
+    }
+
+    public static SyncOutboxEntry playlist(long playlistId) {
+        return new SyncOutboxEntry(TABLE_PLAYLISTS, String.valueOf(playlistId));
+    }
+
+    public static SyncOutboxEntry playlistSong(long playlistId, String songId) {
+        return new SyncOutboxEntry(TABLE_PLAYLIST_SONGS, playlistId + ":" + songId);
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getTableName() { return tableName; }
+    public void setTableName(@NonNull String tableName) { this.tableName = tableName; }
+
+    @NonNull
+    public String getRowKey() { return rowKey; }
+    public void setRowKey(@NonNull String rowKey) { this.rowKey = rowKey; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,198 @@
+package com.midnight.music.data.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Process-wide HTTP clients. Every service shares one OkHttpClient (one connection pool,
+ * one dispatcher), so requests to the same host reuse keep-alive HTTP/2 connections and
+ * TLS sessions instead of paying a new handshake per screen. Retrofit instances and
+ * services are created once per base URL.
+ *
+ * Clients that need their own interceptors should start from {@link #getHttpClient()}'s
+ * {@code newBuilder()}, which keeps the shared pool and dispatcher.
+ *
+ * Once {@link #init(Context)} has run, the shared client also has a disk cache that
+ * {@link ResponseCachePolicy} fills with catalog responses (search, charts, lyrics).
+ * Identical GETs in flight at the same time share one call ({@link RequestCoalescer}).
+ */
+public final class ApiClients {
+    private static final String TAG = "ApiClients";
+
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final String CACHE_DIR = "http";
+    private static final long CACHE_SIZE_BYTES = 20 * 1024 * 1024; // 20 MB
+
+    private static volatile File cacheDir;
+    private static volatile OkHttpClient streamingClient;
+
+    private static volatile OkHttpClient httpClient;
+    private static final Map<String, Retrofit> retrofits = new ConcurrentHashMap<>();
+    private static final Map<String, Object> services = new ConcurrentHashMap<>();
+
+    // Counters behind getStats(): how much connection reuse the shared pool achieves
+    private static final AtomicLong calls = new AtomicLong();
+    private static final AtomicLong connectionsOpened = new AtomicLong();
+    private static final AtomicLong tlsHandshakes = new AtomicLong();
+
+    private ApiClients() {}
+
+    /**
+     * Gives the shared client its disk cache. Called from Application.onCreate, before
+     * the first request; without it the client simply runs uncached.
+     */
+    public static void init(Context context) {
+        if (httpClient != null) {
+            Log.w(TAG, "init() after the client was built, HTTP cache disabled");
+            return;
+        }
+        cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+    }
+
+    public static OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            synchronized (ApiClients.class) {
+                if (httpClient == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+                    OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .dispatcher(dispatcher)
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .connectTimeout(15, TimeUnit.SECONDS)
+                            .readTimeout(30, TimeUnit.SECONDS)
+                            .eventListener(new StatsListener())
+                            .addInterceptor(new RequestCoalescer());
+                    if (cacheDir != null) {
+                        builder.cache(new Cache(cacheDir, CACHE_SIZE_BYTES))
+                                .addInterceptor(new ResponseCachePolicy.CacheInterceptor())
+                                .addNetworkInterceptor(new ResponseCachePolicy.NetworkInterceptor());
+                    }
+                    httpClient = builder.build();
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * The shared pool and dispatcher without the HTTP cache, for audio: streams have
+     * their own cache and must not evict catalog responses.
+     */
+    public static OkHttpClient getStreamingClient() {
+        if (streamingClient == null) {
+            synchronized (ApiClients.class) {
+                if (streamingClient == null) {
+                    OkHttpClient.Builder builder = getHttpClient().newBuilder().cache(null);
+                    builder.interceptors().clear();
+                    builder.networkInterceptors().clear();
+                    streamingClient = builder.build();
+                }
+            }
+        }
+        return streamingClient;
+    }
+
+    /**
+     * Whether {@code file} is the HTTP cache directory (for cache cleanup).
+     */
+    public static boolean ownsFile(File file) {
+        return file.getName().equals(CACHE_DIR);
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public static void clearCache() {
+        Cache cache = getHttpClient().cache();
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.e(TAG, "Error clearing HTTP cache", e);
+        }
+    }
+
+    /**
+     * The shared Retrofit (Gson) for {@code baseUrl}.
+     */
+    public static Retrofit getRetrofit(String baseUrl) {
+        return retrofits.computeIfAbsent(baseUrl, url -> new Retrofit.Builder()
+                .baseUrl(url)
+                .client(getHttpClient())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build());
+    }
+
+    /**
+     * The shared implementation of {@code service} against {@code baseUrl}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(String baseUrl, Class<T> service) {
+        return (T) services.computeIfAbsent(service.getName() + "@" + baseUrl,
+                key -> getRetrofit(baseUrl).create(service));
+    }
+
+    /**
+     * Calls made, connections opened and TLS handshakes since process start. Calls well
+     * above connections means keep-alive is doing its job; coalesced counts duplicate
+     * requests answered by an identical call already in flight.
+     */
+    public static String getStats() {
+        return "calls=" + calls.get()
+                + " coalesced=" + RequestCoalescer.getCoalescedCount()
+                + "/" + (RequestCoalescer.getCoalescedCount() + RequestCoalescer.getLedCount())
+                + " connections=" + connectionsOpened.get()
+                + " tlsHandshakes=" + tlsHandshakes.get()
+                + " pooled=" + getHttpClient().connectionPool().connectionCount();
+    }
+
+    private static class StatsListener extends EventListener {
+        @Override
+        public void callStart(@NonNull Call call) {
+            calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            tlsHandshakes.incrementAndGet();
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            Log.d(TAG, "Call failed: " + call.request().url().host() + " (" + getStats() + ")");
+        }
+    }
+}
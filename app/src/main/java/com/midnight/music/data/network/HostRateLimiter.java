@@ -0,0 +1,169 @@
+package com.midnight.music.data.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Schedules bulk calls to one host (e.g. resolving an imported playlist through Saavn
+ * search): a token bucket caps the request rate, and the number of calls in flight grows
+ * additively while the host answers and halves on 429/5xx, pausing for Retry-After
+ * (or an exponential backoff) before retrying the throttled call.
+ *
+ * Never blocks the caller; calls are started from OkHttp and scheduler threads.
+ */
+public final class HostRateLimiter {
+    private static final String TAG = "HostRateLimiter";
+
+    private static final double TOKENS_PER_SECOND = 10;
+    private static final double BURST = 10;
+    private static final double INITIAL_CONCURRENCY = 2;
+    private static final double MAX_CONCURRENCY = 8;
+    private static final int MAX_RETRIES = 3;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final Map<String, HostRateLimiter> limiters = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final String host;
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    private double tokens = BURST;
+    private long lastRefillAt = SystemClock.elapsedRealtime();
+    private double concurrency = INITIAL_CONCURRENCY;
+    private int active = 0;
+    private long pausedUntil = 0;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private boolean drainScheduled = false;
+
+    private HostRateLimiter(String host) {
+        this.host = host;
+    }
+
+    public static HostRateLimiter forHost(String host) {
+        return limiters.computeIfAbsent(host, HostRateLimiter::new);
+    }
+
+    /**
+     * Enqueues {@code call} through the limiter of its host. Throttled responses are retried
+     * a few times; the callback sees the first non-throttled response (or the last one).
+     */
+    public static <T> void enqueue(Call<T> call, Callback<T> callback) {
+        forHost(call.request().url().host()).schedule(call, callback, 0);
+    }
+
+    private <T> void schedule(Call<T> call, Callback<T> callback, int attempt) {
+        synchronized (this) {
+            pending.add(() -> call.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                    boolean throttled = response.code() == 429 || response.code() >= 500;
+                    if (!throttled) {
+                        onSuccess();
+                    } else {
+                        onThrottled(retryAfterMs(response));
+                        if (attempt < MAX_RETRIES) {
+                            release();
+                            schedule(call.clone(), callback, attempt + 1);
+                            return;
+                        }
+                    }
+                    release();
+                    callback.onResponse(c, response);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                    // Network errors say nothing about the host's capacity
+                    release();
+                    callback.onFailure(c, t);
+                }
+            }));
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (pending.isEmpty() || active >= (int) concurrency) {
+                    return;
+                }
+                long now = SystemClock.elapsedRealtime();
+                long waitMs = pausedUntil - now;
+                if (waitMs <= 0) {
+                    tokens = Math.min(BURST, tokens + (now - lastRefillAt) * TOKENS_PER_SECOND / 1000);
+                    lastRefillAt = now;
+                    waitMs = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * 1000 / TOKENS_PER_SECOND);
+                }
+                if (waitMs > 0) {
+                    if (!drainScheduled) {
+                        drainScheduled = true;
+                        scheduler.schedule(() -> {
+                            synchronized (this) {
+                                drainScheduled = false;
+                            }
+                            drain();
+                        }, waitMs, TimeUnit.MILLISECONDS);
+                    }
+                    return;
+                }
+                tokens -= 1;
+                active++;
+                next = pending.poll();
+            }
+            next.run();
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            active--;
+        }
+        drain();
+    }
+
+    private synchronized void onSuccess() {
+        // Additive increase: about +1 call in flight per round of successful calls
+        concurrency = Math.min(MAX_CONCURRENCY, concurrency + 1 / concurrency);
+        backoffMs = INITIAL_BACKOFF_MS;
+    }
+
+    private synchronized void onThrottled(long retryAfterMs) {
+        concurrency = Math.max(1, concurrency / 2);
+        long pauseMs = retryAfterMs > 0 ? retryAfterMs : backoffMs;
+        backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        pausedUntil = Math.max(pausedUntil, SystemClock.elapsedRealtime() + pauseMs);
+        Log.d(TAG, host + " throttled, concurrency " + (int) concurrency + ", pausing " + pauseMs + "ms");
+    }
+
+    /**
+     * Retry-After in milliseconds (delta-seconds or HTTP date), or 0 if absent.
+     */
+    private static long retryAfterMs(Response<?> response) {
+        String value = response.headers().get("Retry-After");
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.min(MAX_BACKOFF_MS, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date == null ? 0 : Math.min(MAX_BACKOFF_MS, Math.max(0, date.getTime() - System.currentTimeMillis()));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.midnight.music.data.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Collapses identical concurrent GETs into one call. Requests are identical when URL
+ * and every header match, so calls made with different credentials (Authorization,
+ * apikey) or content negotiation never share a response. The first caller goes to the
+ * cache or network; callers that arrive while it is in flight wait for it and get a
+ * copy of its body.
+ *
+ * Only successful responses are shared. If the first call fails, returns an error
+ * status, is cancelled or returns a body too large to share, the waiters make their
+ * own calls, so coalescing never turns one caller's failure into everyone's.
+ */
+final class RequestCoalescer implements Interceptor {
+    private static final long MAX_SHARED_BYTES = 1024 * 1024; // 1 MB
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    // Requests answered by another caller's call, and requests that led one
+    private static final AtomicLong coalesced = new AtomicLong();
+    private static final AtomicLong led = new AtomicLong();
+
+    private static final class InFlight {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Response template;
+        private volatile byte[] body;
+
+        void finish(Response response, byte[] body) {
+            this.template = response;
+            this.body = body;
+            done.countDown();
+        }
+    }
+
+    static long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    static long getLedCount() {
+        return led.get();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        String key = keyOf(request);
+        InFlight mine = new InFlight();
+        InFlight leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            Response shared = await(leader, request, chain.readTimeoutMillis());
+            if (shared != null) {
+                coalesced.incrementAndGet();
+                return shared;
+            }
+            return chain.proceed(request);
+        }
+
+        led.incrementAndGet();
+        Response response = null;
+        byte[] body = null;
+        try {
+            response = chain.proceed(request);
+            if (!response.isSuccessful()) {
+                return response;
+            }
+            // Buffers the body without consuming it; the caller still reads the original
+            byte[] peeked;
+            try {
+                peeked = response.peekBody(MAX_SHARED_BYTES).bytes();
+            } catch (IOException e) {
+                response.close();
+                throw e;
+            }
+            if (peeked.length < MAX_SHARED_BYTES) {
+                body = peeked;
+            }
+            return response;
+        } finally {
+            inFlight.remove(key, mine);
+            mine.finish(body != null ? response : null, body);
+        }
+    }
+
+    /**
+     * URL plus all headers in the order they were added. Header values are part of the
+     * key, not just the names, so two users' tokens give two keys.
+     */
+    static String keyOf(Request request) {
+        return request.method() + " " + request.url() + "\n" + request.headers();
+    }
+
+    private static Response await(InFlight leader, Request request, long timeoutMillis) throws IOException {
+        try {
+            if (!leader.done.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + request.url().encodedPath());
+        }
+        Response template = leader.template;
+        byte[] body = leader.body;
+        if (template == null || body == null) {
+            return null;
+        }
+        ResponseBody templateBody = template.body();
+        MediaType contentType = templateBody != null ? templateBody.contentType() : null;
+        return template.newBuilder()
+                .request(request)
+                .body(ResponseBody.create(body, contentType))
+                .build();
+    }
+}
@@ -0,0 +1,208 @@
+package com.midnight.music.data.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+/**
+ * Per-endpoint freshness for catalog responses (search, suggestions, charts, lyrics),
+ * on top of the shared OkHttp disk cache. Catalog APIs send no useful cache headers,
+ * so the policy decides instead:
+ *
+ * - fresh (younger than maxAge): served from disk, no network;
+ * - stale but within the revalidate window: served from disk immediately, refreshed
+ *   in the background for the next visit;
+ * - older, or not cached: fetched, falling back to any cached copy when the network
+ *   fails, so screens still render offline.
+ */
+public final class ResponseCachePolicy {
+    private static final String TAG = "ResponseCachePolicy";
+
+    // Marks the background refresh so it skips the stale-while-revalidate path
+    private static final String REVALIDATE_HEADER = "X-Cache-Revalidate";
+
+    private static final CacheControl CACHED_ONLY = new CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(Integer.MAX_VALUE, TimeUnit.SECONDS)
+            .build();
+    // Uses the cache's validators (ETag / Last-Modified) if there are any
+    private static final CacheControl REVALIDATE = new CacheControl.Builder()
+            .maxAge(0, TimeUnit.SECONDS)
+            .build();
+
+    static final Policy SEARCH = new Policy(TimeUnit.HOURS.toSeconds(1), TimeUnit.DAYS.toSeconds(7));
+    static final Policy TRENDING = new Policy(TimeUnit.HOURS.toSeconds(6), TimeUnit.DAYS.toSeconds(7));
+    static final Policy SUGGESTIONS = new Policy(TimeUnit.HOURS.toSeconds(24), TimeUnit.DAYS.toSeconds(30));
+    // Lyrics of a song do not change
+    static final Policy LYRICS = new Policy(TimeUnit.DAYS.toSeconds(3650), 0);
+
+    private static final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private ResponseCachePolicy() {}
+
+    static final class Policy {
+        final long maxAgeSeconds;
+        final long staleWhileRevalidateSeconds;
+
+        Policy(long maxAgeSeconds, long staleWhileRevalidateSeconds) {
+            this.maxAgeSeconds = maxAgeSeconds;
+            this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+        }
+    }
+
+    /**
+     * The policy for a catalog endpoint, or null for everything else (left to plain HTTP).
+     */
+    static Policy forUrl(HttpUrl url) {
+        String path = url.encodedPath();
+        String lastFmMethod = url.queryParameter("method");
+        if (lastFmMethod != null) {
+            switch (lastFmMethod) {
+                case "chart.getTopTracks":
+                    return TRENDING;
+                case "track.getSimilar":
+                case "artist.getTopTracks":
+                    return SUGGESTIONS;
+                default:
+                    return null;
+            }
+        }
+        if ("lrclib.net".equals(url.host()) && path.startsWith("/api/")) {
+            return LYRICS;
+        }
+        if (path.endsWith("/suggestions") || path.endsWith("/top-songs")) {
+            return SUGGESTIONS;
+        }
+        if (path.startsWith("/api/search/") || path.equals("/result/")) {
+            return SEARCH;
+        }
+        if (path.equals("/lyrics/")) {
+            return LYRICS;
+        }
+        return null;
+    }
+
+    /**
+     * Application interceptor: decides between cache, background refresh and network.
+     */
+    static final class CacheInterceptor implements Interceptor {
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            Policy policy = "GET".equals(request.method()) ? forUrl(request.url()) : null;
+            if (policy == null) {
+                return chain.proceed(request);
+            }
+            if (request.header(REVALIDATE_HEADER) != null) {
+                return chain.proceed(request.newBuilder()
+                        .removeHeader(REVALIDATE_HEADER)
+                        .cacheControl(REVALIDATE)
+                        .build());
+            }
+
+            Response cached = chain.proceed(request.newBuilder().cacheControl(CACHED_ONLY).build());
+            if (cached.cacheResponse() == null) {
+                // Miss: OkHttp answers only-if-cached with a synthetic 504
+                cached.close();
+                cached = null;
+            } else {
+                long ageSeconds = TimeUnit.MILLISECONDS.toSeconds(
+                        System.currentTimeMillis() - cached.receivedResponseAtMillis());
+                if (ageSeconds < policy.maxAgeSeconds) {
+                    return cached;
+                }
+                if (ageSeconds < policy.maxAgeSeconds + policy.staleWhileRevalidateSeconds) {
+                    revalidateInBackground(request);
+                    return cached;
+                }
+            }
+
+            try {
+                Response network = chain.proceed(request.newBuilder().cacheControl(REVALIDATE).build());
+                if (cached == null) {
+                    return network;
+                }
+                if (network.isSuccessful()) {
+                    cached.close();
+                    return network;
+                }
+                // Server error: an old answer beats none
+                network.close();
+                return cached;
+            } catch (IOException e) {
+                if (cached == null) {
+                    throw e;
+                }
+                Log.d(TAG, "Offline, serving stale " + request.url().encodedPath());
+                return cached;
+            }
+        }
+    }
+
+    /**
+     * Network interceptor: stamps catalog responses with the policy's max-age so the disk
+     * cache stores them regardless of what the server sent.
+     */
+    static final class NetworkInterceptor implements Interceptor {
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            Policy policy = "GET".equals(request.method()) ? forUrl(request.url()) : null;
+            if (policy == null || !response.isSuccessful()) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .header("Cache-Control", "public, max-age=" + policy.maxAgeSeconds)
+                    .build();
+        }
+    }
+
+    private static void revalidateInBackground(Request request) {
+        String key = request.url().toString();
+        if (!revalidating.add(key)) {
+            return;
+        }
+        ApiClients.getHttpClient()
+                .newCall(request.newBuilder().header(REVALIDATE_HEADER, "1").build())
+                .enqueue(new Callback() {
+                    @Override
+                    public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                        revalidating.remove(key);
+                    }
+
+                    @Override
+                    public void onResponse(@NonNull Call call, @NonNull Response response) {
+                        // The cache entry is written as the body is read
+                        try (ResponseBody body = response.body()) {
+                            if (body != null) {
+                                body.source().readAll(Okio.blackhole());
+                            }
+                        } catch (IOException e) {
+                            Log.d(TAG, "Background refresh failed for " + request.url().encodedPath());
+                        } finally {
+                            revalidating.remove(key);
+                        }
+                    }
+                });
+    }
+}
@@ -25,7 +25,10 @@ public class SupabaseApiClient {
         HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
         logging.setLevel(HttpLoggingInterceptor.Level.BODY);
 
-        OkHttpClient client = new OkHttpClient.Builder()
+        // Derived from the shared client: same connection pool and dispatcher, but user
+        // data is never served from the HTTP cache
+        OkHttpClient client = ApiClients.getHttpClient().newBuilder()
+                .cache(null)
                 .addInterceptor(new Interceptor() {
                     @Override
                     public Response intercept(Chain chain) throws IOException {
@@ -5,6 +5,8 @@ import com.google.gson.JsonObject;
 
 import java.util.List;
 
+import okhttp3.ResponseBody;
+
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -13,10 +15,16 @@ import retrofit2.http.Header;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * Supabase PostgREST API service for CRUD operations on songs, playlists, and playlist_songs.
  * All operations require an Authorization header with a Bearer token.
+ *
+ * The three synced tables carry an {@code updated_at timestamptz} column kept current by
+ * an update trigger; incremental pulls filter and order on it. The column and trigger
+ * come from supabase/migrations/20261018000000_sync_updated_at.sql, which must be applied
+ * to the project first.
  */
 public interface SupabaseDataService {
 
@@ -35,16 +43,23 @@ public interface SupabaseDataService {
 
     // ============ Songs ============
 
-    @GET("rest/v1/songs")
-    Call<JsonArray> getSongs(
+    /**
+     * Rows matching {@code updatedAtFilter} (e.g. {@code gt.<timestamp>}; null for all),
+     * oldest change first. Streamed, so large pulls can be parsed row by row.
+     */
+    @Streaming
+    @GET("rest/v1/songs?order=updated_at.asc")
+    Call<ResponseBody> getSongs(
             @Query("user_id") String userIdFilter,
-            @Query("select") String select);
+            @Query("select") String select,
+            @Query("updated_at") String updatedAtFilter);
 
     @POST("rest/v1/songs")
-    Call<JsonArray> upsertSongs(
+    Call<Void> upsertSongs(
             @Body JsonArray body,
             @Header("Prefer") String prefer);
 
+    // Delete filters take eq.<id> for one row or in.(...) for many
     @DELETE("rest/v1/songs")
     Call<Void> deleteSong(
             @Query("id") String idFilter,
@@ -59,13 +74,15 @@ public interface SupabaseDataService {
 
     // ============ Playlists ============
 
-    @GET("rest/v1/playlists")
-    Call<JsonArray> getPlaylists(
+    @Streaming
+    @GET("rest/v1/playlists?order=updated_at.asc")
+    Call<ResponseBody> getPlaylists(
             @Query("user_id") String userIdFilter,
-            @Query("select") String select);
+            @Query("select") String select,
+            @Query("updated_at") String updatedAtFilter);
 
     @POST("rest/v1/playlists")
-    Call<JsonArray> upsertPlaylists(
+    Call<Void> upsertPlaylists(
             @Body JsonArray body,
             @Header("Prefer") String prefer);
 
@@ -76,13 +93,15 @@ public interface SupabaseDataService {
 
     // ============ Playlist Songs ============
 
-    @GET("rest/v1/playlist_songs")
-    Call<JsonArray> getPlaylistSongs(
+    @Streaming
+    @GET("rest/v1/playlist_songs?order=updated_at.asc")
+    Call<ResponseBody> getPlaylistSongs(
             @Query("user_id") String userIdFilter,
-            @Query("select") String select);
+            @Query("select") String select,
+            @Query("updated_at") String updatedAtFilter);
 
     @POST("rest/v1/playlist_songs")
-    Call<JsonArray> upsertPlaylistSongs(
+    Call<Void> upsertPlaylistSongs(
             @Body JsonArray body,
             @Header("Prefer") String prefer);
 
@@ -9,49 +9,93 @@ import com.midnight.music.data.auth.SessionManager;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.db.PlaylistDao;
 import com.midnight.music.data.db.SongDao;
+import com.midnight.music.data.db.SyncOutboxDao;
 import com.midnight.music.data.model.Playlist;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
-import com.midnight.music.data.model.PlaylistWithSongs;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SyncOutboxEntry;
 import com.midnight.music.data.network.SupabaseApiClient;
 import com.midnight.music.data.network.SupabaseDataService;
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 /**
  * Handles automatic synchronization between the local Room database and Supabase cloud.
- * Uses a push-then-pull strategy:
- *   1. Push all local playlists and songs to the cloud (upsert).
- *   2. Pull cloud data and merge into local database.
+ * Uses an incremental push-then-pull strategy:
+ *   1. Drain the sync_outbox: push each changed local row (upsert, or delete when the
+ *      row is gone locally), one batch per table. The first sync of a user pushes
+ *      everything.
+ *   2. Pull cloud rows whose updated_at is past the table's watermark, less a safety
+ *      window, and merge them into the local database in one transaction.
+ * A sync with nothing to do costs three small pull requests.
  */
 public class CloudSyncManager {
     private static final String TAG = "CloudSyncManager";
     private static volatile CloudSyncManager instance;
-
+    // Rows per upsert request, and upsert requests in flight at once
+    static final int PUSH_CHUNK_SIZE = 500;
+    static final int PUSH_PARALLELISM = 4;
+    // Characters of ids per in.(...) delete filter, keeping URLs far below proxy limits
+    private static final int MAX_FILTER_LENGTH = 1500;
+    // Ids per IN (...) lookup while merging a pull, below SQLite's 999 variable limit
+    private static final int PULL_CHUNK_SIZE = 500;
+    // How far before the watermark each pull starts, see minusOverlap()
+    private static final Duration PULL_OVERLAP = Duration.ofMinutes(5);
+
+    private final AppDatabase db;
     private final SongDao songDao;
     private final PlaylistDao playlistDao;
+    private final SyncOutboxDao outboxDao;
     private final SupabaseDataService dataService;
     private final SessionManager sessionManager;
+    private final SyncState syncState;
     private final Executor diskIO;
+    private final ExecutorService pushExecutor;
+    private final Gson gson = new Gson();
 
     private boolean isSyncing = false;
 
     private CloudSyncManager(Context context) {
-        AppDatabase db = AppDatabase.getInstance(context);
+        this(context, AppDatabase.getInstance(context), SupabaseApiClient.getInstance().getDataService());
+    }
+
+    // Tests pass an in-memory database and a service pointed at a local server
+    CloudSyncManager(Context context, AppDatabase db, SupabaseDataService dataService) {
+        this.db = db;
         this.songDao = db.songDao();
         this.playlistDao = db.playlistDao();
-        this.dataService = SupabaseApiClient.getInstance().getDataService();
+        this.outboxDao = db.syncOutboxDao();
+        this.dataService = dataService;
         this.sessionManager = SessionManager.getInstance(context);
+        this.syncState = SyncState.getInstance(context);
         this.diskIO = Executors.newSingleThreadExecutor();
+        this.pushExecutor = Executors.newFixedThreadPool(PUSH_PARALLELISM);
     }
 
     public static CloudSyncManager getInstance(Context context) {
@@ -70,7 +114,42 @@ public class CloudSyncManager {
     }
 
     /**
-     * Perform a full bidirectional sync.
+     * Pushes the given outbox keys of one table; returns false to keep them for a retry.
+     */
+    private interface TablePush {
+        boolean push(Set<String> keys);
+    }
+
+    /**
+     * One of the data service's upsert endpoints.
+     */
+    private interface Upsert {
+        Call<Void> call(JsonArray rows, String prefer);
+    }
+
+    /**
+     * A delete endpoint with every filter but the key filter bound.
+     */
+    private interface Delete {
+        Call<Void> call(String keyFilter);
+    }
+
+    private interface RowParser<T> {
+        T parse(JsonObject row);
+    }
+
+    /**
+     * Entities parsed from one table's pull in updated_at order, the updated_at of each
+     * row (null where missing), and the updated_at of the newest row.
+     */
+    private static class PulledRows<T> {
+        final List<T> rows = new ArrayList<>();
+        final List<String> updatedAts = new ArrayList<>();
+        String watermark;
+    }
+
+    /**
+     * Perform an incremental bidirectional sync.
      * Call this after login, on app launch (if logged in), or after local changes.
      */
     public void sync(SyncCallback callback) {
@@ -94,23 +173,24 @@ public class CloudSyncManager {
 
         Log.d(TAG, "Starting sync for user: " + userId);
 
-        // Step 1: Push local data to cloud
         diskIO.execute(() -> {
             try {
-                Log.d(TAG, "Pushing songs to cloud...");
-                pushSongsToCloud(userId);
-                Log.d(TAG, "Pushing playlists to cloud...");
-                pushPlaylistsToCloud(userId);
-                Log.d(TAG, "Pushing playlist songs to cloud...");
-                pushPlaylistSongsToCloud(userId);
-
-                // Step 2: Pull cloud data to local
+                if (syncState.bindUser(userId)) {
+                    Log.d(TAG, "First sync for this user, pushing the whole library");
+                    markLibraryDirty();
+                }
+
+                // Step 1: Push local changes to cloud
+                pushPending(userId);
+
+                // Step 2: Pull cloud changes, then merge them into local in one go
                 Log.d(TAG, "Pulling songs from cloud...");
-                pullSongsFromCloud(userId);
+                PulledRows<Song> songs = pullSongsFromCloud(userId);
                 Log.d(TAG, "Pulling playlists from cloud...");
-                pullPlaylistsFromCloud(userId);
+                PulledRows<Playlist> playlists = pullPlaylistsFromCloud(userId);
                 Log.d(TAG, "Pulling playlist songs from cloud...");
-                pullPlaylistSongsFromCloud(userId);
+                PulledRows<PlaylistSongCrossRef> crossRefs = pullPlaylistSongsFromCloud(userId);
+                mergePulled(songs, playlists, crossRefs);
 
                 isSyncing = false;
                 Log.d(TAG, "Sync completed successfully");
@@ -157,280 +237,513 @@ public class CloudSyncManager {
         }
     }
 
-    private void pushSongsToCloud(String userId) {
-        try {
-            // Get all songs from local DB
-            List<Song> allLocalSongs = songDao.getAllSongsSync();
-            if (allLocalSongs == null || allLocalSongs.isEmpty()) return;
+    /**
+     * Drains the outbox of every table. Entries of a table whose push failed stay
+     * for the next sync. Runs on the calling thread.
+     */
+    void pushPending(String userId) {
+        Log.d(TAG, "Pushing songs to cloud...");
+        push(SyncOutboxEntry.TABLE_SONGS, keys -> pushSongsToCloud(userId, keys));
+        Log.d(TAG, "Pushing playlists to cloud...");
+        push(SyncOutboxEntry.TABLE_PLAYLISTS, keys -> pushPlaylistsToCloud(userId, keys));
+        Log.d(TAG, "Pushing playlist songs to cloud...");
+        push(SyncOutboxEntry.TABLE_PLAYLIST_SONGS, keys -> pushPlaylistSongsToCloud(userId, keys));
+    }
 
-            // First, get existing cloud songs to find which ones to delete (unliked)
-            try {
-                Response<JsonArray> cloudResponse = dataService.getSongs(
-                        "eq." + userId,
-                        "id"
-                ).execute();
+    private void push(String table, TablePush pusher) {
+        List<SyncOutboxEntry> pending = outboxDao.getPending(table);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (SyncOutboxEntry entry : pending) {
+            keys.add(entry.getRowKey());
+        }
+        if (pusher.push(keys)) {
+            outboxDao.removePushed(table, pending.get(pending.size() - 1).getId());
+        }
+    }
 
-                if (cloudResponse.isSuccessful() && cloudResponse.body() != null) {
-                    // Build set of local song IDs (all songs in DB)
-                    java.util.Set<String> localSongIds = new java.util.HashSet<>();
-                    for (Song s : allLocalSongs) {
-                        localSongIds.add(s.getId());
-                    }
+    /**
+     * Records every synced local row in the outbox, so the next push uploads the whole library.
+     */
+    private void markLibraryDirty() {
+        List<SyncOutboxEntry> entries = new ArrayList<>();
+        for (Song song : songDao.getLikedSongsSync()) {
+            entries.add(SyncOutboxEntry.song(song.getId()));
+        }
+        for (Playlist playlist : playlistDao.getAllPlaylistsSync()) {
+            entries.add(SyncOutboxEntry.playlist(playlist.getId()));
+        }
+        for (PlaylistSongCrossRef crossRef : playlistDao.getAllCrossRefsSync()) {
+            entries.add(SyncOutboxEntry.playlistSong(crossRef.getPlaylistId(), crossRef.getSongId()));
+        }
+        outboxDao.record(entries);
+    }
 
-                    // Find cloud songs that don't exist locally - they were unliked
-                    for (JsonElement elem : cloudResponse.body()) {
-                        JsonObject cloudSong = elem.getAsJsonObject();
-                        String cloudSongId = cloudSong.get("id").getAsString();
-
-                        if (!localSongIds.contains(cloudSongId)) {
-                            // Song was unliked - delete from cloud
-                            try {
-                                dataService.deleteSong(cloudSongId, userId).execute();
-                                Log.d(TAG, "Deleted unliked song from cloud: " + cloudSongId);
-                            } catch (Exception e) {
-                                Log.e(TAG, "Failed to delete song: " + cloudSongId, e);
-                            }
-                        }
-                    }
+    private boolean pushSongsToCloud(String userId, Set<String> songIds) {
+        try {
+            List<JsonObject> songRows = new ArrayList<>();
+            List<String> removedIds = new ArrayList<>();
+            for (String songId : songIds) {
+                Song song = songDao.getSongByIdSync(songId);
+                if (song != null) {
+                    songRows.add(toCloudSong(song, userId));
+                } else {
+                    // Removed locally - delete from cloud
+                    removedIds.add(songId);
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error getting cloud songs for sync", e);
             }
 
-            // Now push/update all liked songs
-            JsonArray songsArray = new JsonArray();
-            for (Song song : allLocalSongs) {
-                if (song.isLiked()) {
+            boolean deleted = deleteInChunks(removedIds,
+                    filter -> dataService.deleteSong(filter, "eq." + userId), "songs");
+            return upsertInChunks(songRows, dataService::upsertSongs, "songs") && deleted;
+        } catch (Exception e) {
+            Log.e(TAG, "Error pushing songs", e);
+            return false;
+        }
+    }
+
+    private boolean pushPlaylistsToCloud(String userId, Set<String> playlistIds) {
+        try {
+            List<JsonObject> playlistRows = new ArrayList<>();
+            List<String> removedIds = new ArrayList<>();
+            for (String playlistId : playlistIds) {
+                Playlist p = playlistDao.getPlaylistByIdSync(Long.parseLong(playlistId));
+                if (p != null) {
                     JsonObject obj = new JsonObject();
-                    obj.addProperty("id", song.getId());
+                    obj.addProperty("id", p.getId());
                     obj.addProperty("user_id", userId);
-                    obj.addProperty("title", song.getSong());
-                    obj.addProperty("artist", song.getSingers());
-                    obj.addProperty("album", song.getAlbum());
-                    obj.addProperty("duration", song.getDuration());
-                    obj.addProperty("image_url", song.getImageUrl());
-                    obj.addProperty("language", song.getLanguage());
-                    obj.addProperty("year", song.getYear());
-                    obj.addProperty("is_liked", song.isLiked());
-                    obj.addProperty("perma_url", song.getPermaUrl());
-                    obj.addProperty("media_url", song.getMediaUrl());
-                    songsArray.add(obj);
-                }
-            }
-
-            if (songsArray.size() > 0) {
-                Response<JsonArray> response = dataService.upsertSongs(
-                        songsArray,
-                        "resolution=merge-duplicates"
-                ).execute();
-
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Failed to push songs: " + response.code());
+                    obj.addProperty("name", p.getName());
+                    obj.addProperty("created_at", p.getCreatedAt());
+                    playlistRows.add(obj);
                 } else {
-                    Log.d(TAG, "Pushed " + songsArray.size() + " liked songs to cloud");
+                    // Deleted locally - delete it and its songs from cloud
+                    removedIds.add(playlistId);
                 }
             }
+
+            boolean deleted = deleteInChunks(removedIds,
+                    filter -> dataService.deletePlaylistSongsByPlaylist(filter, "eq." + userId), "playlist_songs")
+                    && deleteInChunks(removedIds,
+                    filter -> dataService.deletePlaylist(filter, "eq." + userId), "playlists");
+            return upsertInChunks(playlistRows, dataService::upsertPlaylists, "playlists") && deleted;
         } catch (Exception e) {
-            Log.e(TAG, "Error pushing songs", e);
+            Log.e(TAG, "Error pushing playlists", e);
+            return false;
         }
     }
 
-    private void pushPlaylistsToCloud(String userId) {
+    private boolean pushPlaylistSongsToCloud(String userId, Set<String> crossRefKeys) {
         try {
-            List<PlaylistWithSongs> playlists = playlistDao.getAllPlaylistsWithSongsSync();
-            if (playlists == null || playlists.isEmpty()) return;
-
-            JsonArray playlistsArray = new JsonArray();
-            for (PlaylistWithSongs pws : playlists) {
-                Playlist p = pws.playlist;
-                JsonObject obj = new JsonObject();
-                obj.addProperty("id", p.getId());
-                obj.addProperty("user_id", userId);
-                obj.addProperty("name", p.getName());
-                obj.addProperty("created_at", p.getCreatedAt());
-                playlistsArray.add(obj);
+            // A song in several playlists is pushed once
+            Map<String, JsonObject> songRows = new LinkedHashMap<>();
+            List<JsonObject> crossRefRows = new ArrayList<>();
+            Map<Long, List<String>> removedByPlaylist = new LinkedHashMap<>();
+            for (String key : crossRefKeys) {
+                int separator = key.indexOf(':');
+                long playlistId = Long.parseLong(key.substring(0, separator));
+                String songId = key.substring(separator + 1);
+
+                PlaylistSongCrossRef crossRef = playlistDao.getCrossRefSync(playlistId, songId);
+                if (crossRef == null) {
+                    // Removed locally - delete from cloud
+                    removedByPlaylist.computeIfAbsent(playlistId, id -> new ArrayList<>()).add(songId);
+                    continue;
+                }
+
+                if (!songRows.containsKey(songId)) {
+                    Song song = songDao.getSongByIdSync(songId);
+                    if (song != null) {
+                        songRows.put(songId, toCloudSong(song, userId));
+                    }
+                }
+
+                JsonObject ref = new JsonObject();
+                ref.addProperty("playlist_id", playlistId);
+                ref.addProperty("song_id", songId);
+                ref.addProperty("user_id", userId);
+                ref.addProperty("added_at", crossRef.getAddedAt());
+                ref.addProperty("position", crossRef.getPosition());
+                crossRefRows.add(ref);
             }
 
-            Response<JsonArray> response = dataService.upsertPlaylists(
-                    playlistsArray,
-                    "resolution=merge-duplicates"
-            ).execute();
+            boolean deleted = true;
+            for (Map.Entry<Long, List<String>> removed : removedByPlaylist.entrySet()) {
+                String playlistFilter = "eq." + removed.getKey();
+                deleted &= deleteInChunks(removed.getValue(),
+                        filter -> dataService.deletePlaylistSong(playlistFilter, filter, "eq." + userId),
+                        "playlist_songs");
+            }
 
-            if (!response.isSuccessful()) {
-                Log.e(TAG, "Failed to push playlists: " + response.code());
+            // Songs first, so every pushed row refers to a song the cloud has
+            if (!upsertInChunks(new ArrayList<>(songRows.values()), dataService::upsertSongs, "songs")) {
+                return false;
             }
+            return upsertInChunks(crossRefRows, dataService::upsertPlaylistSongs, "playlist_songs") && deleted;
         } catch (Exception e) {
-            Log.e(TAG, "Error pushing playlists", e);
+            Log.e(TAG, "Error pushing playlist songs", e);
+            return false;
         }
     }
 
-    private void pushPlaylistSongsToCloud(String userId) {
+    /**
+     * Upserts {@code rows} in requests of {@link #PUSH_CHUNK_SIZE} rows, up to
+     * {@link #PUSH_PARALLELISM} requests at a time. Returns false if any request failed.
+     */
+    private boolean upsertInChunks(List<JsonObject> rows, Upsert upsert, String table) {
+        if (rows.isEmpty()) {
+            return true;
+        }
+        List<Callable<Boolean>> requests = new ArrayList<>();
+        for (int start = 0; start < rows.size(); start += PUSH_CHUNK_SIZE) {
+            JsonArray chunk = new JsonArray();
+            for (JsonObject row : rows.subList(start, Math.min(rows.size(), start + PUSH_CHUNK_SIZE))) {
+                chunk.add(row);
+            }
+            requests.add(() -> {
+                Response<Void> response = upsert.call(chunk, "resolution=merge-duplicates").execute();
+                if (!response.isSuccessful()) {
+                    Log.e(TAG, "Failed to push " + table + ": " + response.code());
+                }
+                return response.isSuccessful();
+            });
+        }
+
+        boolean success = true;
         try {
-            List<PlaylistWithSongs> playlists = playlistDao.getAllPlaylistsWithSongsSync();
-            if (playlists == null || playlists.isEmpty()) return;
-
-            JsonArray crossRefsArray = new JsonArray();
-            for (PlaylistWithSongs pws : playlists) {
-                if (pws.songs == null) continue;
-                for (Song song : pws.songs) {
-                    // Also push the song itself first
-                    JsonObject songObj = new JsonObject();
-                    songObj.addProperty("id", song.getId());
-                    songObj.addProperty("user_id", userId);
-                    songObj.addProperty("title", song.getSong());
-                    songObj.addProperty("artist", song.getSingers());
-                    songObj.addProperty("album", song.getAlbum());
-                    songObj.addProperty("duration", song.getDuration());
-                    songObj.addProperty("image_url", song.getImageUrl());
-                    songObj.addProperty("language", song.getLanguage());
-                    songObj.addProperty("year", song.getYear());
-                    songObj.addProperty("is_liked", song.isLiked());
-                    songObj.addProperty("perma_url", song.getPermaUrl());
-                    songObj.addProperty("media_url", song.getMediaUrl());
-
-                    // Push it
-                    JsonArray singleSong = new JsonArray();
-                    singleSong.add(songObj);
-                    try {
-                        dataService.upsertSongs(singleSong, "resolution=merge-duplicates").execute();
-                    } catch (Exception ignored) {}
-
-                    JsonObject ref = new JsonObject();
-                    ref.addProperty("playlist_id", pws.playlist.getId());
-                    ref.addProperty("song_id", song.getId());
-                    ref.addProperty("user_id", userId);
-                    ref.addProperty("added_at", System.currentTimeMillis());
-                    crossRefsArray.add(ref);
+            for (Future<Boolean> result : pushExecutor.invokeAll(requests)) {
+                try {
+                    success &= result.get();
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Error pushing " + table, e.getCause());
+                    success = false;
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        Log.d(TAG, "Pushed " + rows.size() + " " + table + " in " + requests.size() + " requests");
+        return success;
+    }
 
-            if (crossRefsArray.size() > 0) {
-                Response<JsonArray> response = dataService.upsertPlaylistSongs(
-                        crossRefsArray,
-                        "resolution=merge-duplicates"
-                ).execute();
+    /**
+     * Deletes rows whose key is in {@code keys} with as few {@code in.(...)} filtered
+     * requests as the URL length allows. Returns false if any request failed.
+     */
+    private boolean deleteInChunks(List<String> keys, Delete delete, String table) throws IOException {
+        boolean success = true;
+        List<String> filters = inFilters(keys);
+        for (String filter : filters) {
+            Response<Void> response = delete.call(filter).execute();
+            if (!response.isSuccessful()) {
+                Log.e(TAG, "Failed to delete " + table + ": " + response.code());
+                success = false;
+            }
+        }
+        if (!filters.isEmpty()) {
+            Log.d(TAG, "Deleted " + keys.size() + " " + table + " in " + filters.size() + " requests");
+        }
+        return success;
+    }
 
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Failed to push playlist_songs: " + response.code());
-                }
+    /**
+     * PostgREST {@code in.(...)} filters covering {@code values}, each at most
+     * {@link #MAX_FILTER_LENGTH} characters. Values are quoted, so ids may contain
+     * PostgREST's reserved characters.
+     */
+    static List<String> inFilters(Collection<String> values) {
+        List<String> filters = new ArrayList<>();
+        StringBuilder filter = new StringBuilder();
+        for (String value : values) {
+            String quoted = "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            if (filter.length() > 0 && filter.length() + 1 + quoted.length() > MAX_FILTER_LENGTH) {
+                filters.add("in.(" + filter + ")");
+                filter.setLength(0);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error pushing playlist songs", e);
+            if (filter.length() > 0) {
+                filter.append(',');
+            }
+            filter.append(quoted);
         }
+        if (filter.length() > 0) {
+            filters.add("in.(" + filter + ")");
+        }
+        return filters;
     }
 
     // ============ Pull from Cloud ============
 
-    private void pullSongsFromCloud(String userId) {
+    private PulledRows<Song> pullSongsFromCloud(String userId) {
+        return pull(SyncOutboxEntry.TABLE_SONGS, dataService.getSongs(
+                "eq." + userId,
+                "*",
+                changedSince(SyncOutboxEntry.TABLE_SONGS)
+        ), obj -> {
+            Song song = new Song(obj.get("id").getAsString());
+            song.setSong(getJsonString(obj, "title"));
+            song.setSingers(getJsonString(obj, "artist"));
+            song.setAlbum(getJsonString(obj, "album"));
+            song.setDuration(getJsonString(obj, "duration"));
+            song.setImageUrl(getJsonString(obj, "image_url"));
+            song.setLanguage(getJsonString(obj, "language"));
+            song.setYear(getJsonString(obj, "year"));
+            song.setLiked(obj.has("is_liked") && obj.get("is_liked").getAsBoolean());
+            song.setPermaUrl(getJsonString(obj, "perma_url"));
+            song.setMediaUrl(getJsonString(obj, "media_url"));
+            song.setTimestamp(0); // Don't pollute recents
+            return song;
+        });
+    }
+
+    private PulledRows<Playlist> pullPlaylistsFromCloud(String userId) {
+        return pull(SyncOutboxEntry.TABLE_PLAYLISTS, dataService.getPlaylists(
+                "eq." + userId,
+                "*",
+                changedSince(SyncOutboxEntry.TABLE_PLAYLISTS)
+        ), obj -> {
+            Playlist playlist = new Playlist(getJsonString(obj, "name"));
+            playlist.setId(obj.get("id").getAsLong());
+            if (obj.has("created_at") && !obj.get("created_at").isJsonNull()) {
+                playlist.setCreatedAt(obj.get("created_at").getAsLong());
+            }
+            return playlist;
+        });
+    }
+
+    private PulledRows<PlaylistSongCrossRef> pullPlaylistSongsFromCloud(String userId) {
+        return pull(SyncOutboxEntry.TABLE_PLAYLIST_SONGS, dataService.getPlaylistSongs(
+                "eq." + userId,
+                "*",
+                changedSince(SyncOutboxEntry.TABLE_PLAYLIST_SONGS)
+        ), obj -> {
+            long addedAt = obj.has("added_at") ? obj.get("added_at").getAsLong() : System.currentTimeMillis();
+            PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(
+                    obj.get("playlist_id").getAsLong(), obj.get("song_id").getAsString());
+            crossRef.setAddedAt(addedAt);
+            // Rows written before the position column existed are ordered by added_at
+            // (the migration backfills position from it, this covers a null anyway)
+            crossRef.setPosition(obj.has("position") && !obj.get("position").isJsonNull()
+                    ? obj.get("position").getAsLong() : addedAt);
+            return crossRef;
+        });
+    }
+
+    /**
+     * Runs {@code call} and parses the streamed JSON array row by row, so only the parsed
+     * entities are held in memory. Returns null if the pull failed.
+     */
+    private <T> PulledRows<T> pull(String table, Call<ResponseBody> call, RowParser<T> parser) {
         try {
-            Response<JsonArray> response = dataService.getSongs(
-                    "eq." + userId,
-                    "*"
-            ).execute();
-
-            if (response.isSuccessful() && response.body() != null) {
-                for (JsonElement elem : response.body()) {
-                    JsonObject obj = elem.getAsJsonObject();
-                    String songId = obj.get("id").getAsString();
-
-                    // Check if already exists locally
-                    Song existing = songDao.getSongByIdSync(songId);
-                    if (existing == null) {
-                        Song song = new Song(songId);
-                        song.setSong(getJsonString(obj, "title"));
-                        song.setSingers(getJsonString(obj, "artist"));
-                        song.setAlbum(getJsonString(obj, "album"));
-                        song.setDuration(getJsonString(obj, "duration"));
-                        song.setImageUrl(getJsonString(obj, "image_url"));
-                        song.setLanguage(getJsonString(obj, "language"));
-                        song.setYear(getJsonString(obj, "year"));
-                        song.setLiked(obj.has("is_liked") && obj.get("is_liked").getAsBoolean());
-                        song.setPermaUrl(getJsonString(obj, "perma_url"));
-                        song.setMediaUrl(getJsonString(obj, "media_url"));
-                        song.setTimestamp(0); // Don't pollute recents
-                        songDao.insert(song);
-                    } else {
-                        // Update URLs from cloud if local is missing them
-                        String cloudPermaUrl = getJsonString(obj, "perma_url");
-                        String cloudMediaUrl = getJsonString(obj, "media_url");
-                        boolean updated = false;
-                        if (existing.getPermaUrl() == null && cloudPermaUrl != null) {
-                            existing.setPermaUrl(cloudPermaUrl);
-                            updated = true;
-                        }
-                        if (existing.getMediaUrl() == null && cloudMediaUrl != null) {
-                            existing.setMediaUrl(cloudMediaUrl);
-                            updated = true;
-                        }
-                        if (updated) {
-                            songDao.update(existing);
-                        }
+            Response<ResponseBody> response = call.execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.e(TAG, "Failed to pull " + table + ": " + response.code());
+                return null;
+            }
+            PulledRows<T> pulled = new PulledRows<>();
+            try (ResponseBody body = response.body();
+                 JsonReader reader = new JsonReader(body.charStream())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JsonObject obj = gson.fromJson(reader, JsonObject.class);
+                    pulled.rows.add(parser.parse(obj));
+                    // Rows arrive ordered by updated_at: the last one is the newest
+                    String updatedAt = getJsonString(obj, "updated_at");
+                    pulled.updatedAts.add(updatedAt);
+                    if (updatedAt != null) {
+                        pulled.watermark = updatedAt;
                     }
                 }
+                reader.endArray();
             }
+            Log.d(TAG, "Pulled " + pulled.rows.size() + " " + table);
+            return pulled;
         } catch (Exception e) {
-            Log.e(TAG, "Error pulling songs", e);
+            Log.e(TAG, "Error pulling " + table, e);
+            return null;
         }
     }
 
-    private void pullPlaylistsFromCloud(String userId) {
-        try {
-            Response<JsonArray> response = dataService.getPlaylists(
-                    "eq." + userId,
-                    "*"
-            ).execute();
-
-            if (response.isSuccessful() && response.body() != null) {
-                for (JsonElement elem : response.body()) {
-                    JsonObject obj = elem.getAsJsonObject();
-                    long playlistId = obj.get("id").getAsLong();
-
-                    Playlist existing = playlistDao.getPlaylistByIdSync(playlistId);
-                    if (existing == null) {
-                        Playlist playlist = new Playlist(getJsonString(obj, "name"));
-                        playlist.setId(playlistId);
-                        if (obj.has("created_at") && !obj.get("created_at").isJsonNull()) {
-                            playlist.setCreatedAt(obj.get("created_at").getAsLong());
-                        }
-                        playlistDao.insert(playlist);
-                    }
+    /**
+     * Applies everything pulled in a single transaction, so observers see one
+     * invalidation per sync. Watermarks move only once the merge has committed, and the
+     * playlist_songs watermark stops short of the first row that had to be skipped.
+     */
+    private void mergePulled(PulledRows<Song> songs, PulledRows<Playlist> playlists,
+                             PulledRows<PlaylistSongCrossRef> crossRefs) {
+        db.runInTransaction(() -> {
+            if (songs != null) {
+                mergeSongs(songs.rows);
+            }
+            if (playlists != null) {
+                playlistDao.insertPlaylistsIfAbsent(playlists.rows);
+            }
+            if (crossRefs != null) {
+                int firstSkipped = mergeCrossRefs(crossRefs.rows);
+                if (firstSkipped >= 0) {
+                    crossRefs.watermark = watermarkBefore(crossRefs, firstSkipped);
                 }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error pulling playlists", e);
-        }
+        });
+
+        advanceWatermark(SyncOutboxEntry.TABLE_SONGS, songs);
+        advanceWatermark(SyncOutboxEntry.TABLE_PLAYLISTS, playlists);
+        advanceWatermark(SyncOutboxEntry.TABLE_PLAYLIST_SONGS, crossRefs);
     }
 
-    private void pullPlaylistSongsFromCloud(String userId) {
-        try {
-            Response<JsonArray> response = dataService.getPlaylistSongs(
-                    "eq." + userId,
-                    "*"
-            ).execute();
-
-            if (response.isSuccessful() && response.body() != null) {
-                for (JsonElement elem : response.body()) {
-                    JsonObject obj = elem.getAsJsonObject();
-                    long playlistId = obj.get("playlist_id").getAsLong();
-                    String songId = obj.get("song_id").getAsString();
-                    long addedAt = obj.has("added_at") ? obj.get("added_at").getAsLong() : System.currentTimeMillis();
-
-                    PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(playlistId, songId);
-                    crossRef.setAddedAt(addedAt);
-                    try {
-                        playlistDao.insert(crossRef);
-                    } catch (Exception ignored) {
-                        // Cross ref may already exist
-                    }
+    private void mergeSongs(List<Song> cloudSongs) {
+        List<Song> inserts = new ArrayList<>();
+        List<Song> updates = new ArrayList<>();
+        for (int start = 0; start < cloudSongs.size(); start += PULL_CHUNK_SIZE) {
+            List<Song> chunk = cloudSongs.subList(start, Math.min(cloudSongs.size(), start + PULL_CHUNK_SIZE));
+            List<String> ids = new ArrayList<>();
+            for (Song song : chunk) {
+                ids.add(song.getId());
+            }
+            Map<String, Song> existing = new HashMap<>();
+            for (Song song : songDao.getSongsByIdsSync(ids)) {
+                existing.put(song.getId(), song);
+            }
+
+            for (Song cloud : chunk) {
+                Song local = existing.get(cloud.getId());
+                if (local == null) {
+                    inserts.add(cloud);
+                    continue;
+                }
+                // Update URLs from cloud if local is missing them
+                boolean updated = false;
+                if (local.getPermaUrl() == null && cloud.getPermaUrl() != null) {
+                    local.setPermaUrl(cloud.getPermaUrl());
+                    updated = true;
+                }
+                if (local.getMediaUrl() == null && cloud.getMediaUrl() != null) {
+                    local.setMediaUrl(cloud.getMediaUrl());
+                    updated = true;
+                }
+                if (updated) {
+                    updates.add(local);
                 }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error pulling playlist songs", e);
         }
+        songDao.insertAllIfAbsent(inserts);
+        songDao.updateAll(updates);
+    }
+
+    /**
+     * Stores the pulled playlist songs. A row whose song or playlist is missing locally
+     * would fail its foreign key and abort the whole transaction, so those are skipped.
+     * Returns the index of the first skipped row, or -1 if none was.
+     */
+    private int mergeCrossRefs(List<PlaylistSongCrossRef> cloudCrossRefs) {
+        Set<String> songIds = new HashSet<>();
+        Set<Long> playlistIds = new HashSet<>();
+        for (PlaylistSongCrossRef crossRef : cloudCrossRefs) {
+            songIds.add(crossRef.getSongId());
+            playlistIds.add(crossRef.getPlaylistId());
+        }
+        Set<String> existingSongs = new HashSet<>();
+        List<String> songIdList = new ArrayList<>(songIds);
+        for (int start = 0; start < songIdList.size(); start += PULL_CHUNK_SIZE) {
+            existingSongs.addAll(songDao.getExistingSongIds(
+                    songIdList.subList(start, Math.min(songIdList.size(), start + PULL_CHUNK_SIZE))));
+        }
+        Set<Long> existingPlaylists = new HashSet<>();
+        List<Long> playlistIdList = new ArrayList<>(playlistIds);
+        for (int start = 0; start < playlistIdList.size(); start += PULL_CHUNK_SIZE) {
+            existingPlaylists.addAll(playlistDao.getExistingPlaylistIds(
+                    playlistIdList.subList(start, Math.min(playlistIdList.size(), start + PULL_CHUNK_SIZE))));
+        }
+
+        List<PlaylistSongCrossRef> valid = new ArrayList<>();
+        int firstSkipped = -1;
+        for (int i = 0; i < cloudCrossRefs.size(); i++) {
+            PlaylistSongCrossRef crossRef = cloudCrossRefs.get(i);
+            if (existingSongs.contains(crossRef.getSongId())
+                    && existingPlaylists.contains(crossRef.getPlaylistId())) {
+                valid.add(crossRef);
+            } else if (firstSkipped < 0) {
+                firstSkipped = i;
+            }
+        }
+        if (firstSkipped >= 0) {
+            Log.w(TAG, "Skipped " + (cloudCrossRefs.size() - valid.size())
+                    + " playlist songs without a local song or playlist, retried next sync");
+        }
+        playlistDao.insertCrossRefs(valid);
+        return firstSkipped;
+    }
+
+    /**
+     * The watermark that makes the next pull start again at row {@code index}: the
+     * updated_at of the newest earlier row with a strictly older value (the filter is
+     * gt.), or null to leave the watermark where it is. Rows after it are pulled again
+     * too; merging them is idempotent.
+     */
+    private String watermarkBefore(PulledRows<?> pulled, int index) {
+        String held = pulled.updatedAts.get(index);
+        for (int i = index - 1; i >= 0; i--) {
+            String updatedAt = pulled.updatedAts.get(i);
+            if (updatedAt != null && !updatedAt.equals(held)) {
+                return updatedAt;
+            }
+        }
+        return null;
     }
 
     // ============ Helpers ============
 
+    private JsonObject toCloudSong(Song song, String userId) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", song.getId());
+        obj.addProperty("user_id", userId);
+        obj.addProperty("title", song.getSong());
+        obj.addProperty("artist", song.getSingers());
+        obj.addProperty("album", song.getAlbum());
+        obj.addProperty("duration", song.getDuration());
+        obj.addProperty("image_url", song.getImageUrl());
+        obj.addProperty("language", song.getLanguage());
+        obj.addProperty("year", song.getYear());
+        obj.addProperty("is_liked", song.isLiked());
+        obj.addProperty("perma_url", song.getPermaUrl());
+        obj.addProperty("media_url", song.getMediaUrl());
+        return obj;
+    }
+
+    /**
+     * PostgREST filter for rows changed since the last pull of {@code table}, or null
+     * (everything) before the first pull.
+     */
+    private String changedSince(String table) {
+        String watermark = syncState.getWatermark(table);
+        return watermark != null ? "gt." + minusOverlap(watermark) : null;
+    }
+
+    /**
+     * updated_at is stamped when a row is written, not when its transaction commits, so
+     * a slow transaction can become visible with a value below a watermark that has
+     * already moved past it. Pulls reach back {@link #PULL_OVERLAP} to pick those rows
+     * up; the rows pulled twice merge idempotently.
+     */
+    private String minusOverlap(String watermark) {
+        try {
+            return OffsetDateTime.parse(watermark).minus(PULL_OVERLAP).toString();
+        } catch (DateTimeParseException e) {
+            Log.w(TAG, "Unparseable watermark " + watermark + ", pulling without overlap");
+            return watermark;
+        }
+    }
+
+    /**
+     * Moves the watermark of {@code table} to the newest row of a merged pull.
+     */
+    private void advanceWatermark(String table, PulledRows<?> pulled) {
+        if (pulled != null && pulled.watermark != null) {
+            syncState.setWatermark(table, pulled.watermark);
+        }
+    }
+
     private String getJsonString(JsonObject obj, String key) {
         if (obj.has(key) && !obj.get(key).isJsonNull()) {
             return obj.get(key).getAsString();
@@ -6,6 +6,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.work.Constraints;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.NetworkType;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
@@ -27,6 +28,8 @@ public class CloudSyncWorker extends Worker {
     private static final String TAG = "CloudSyncWorker";
     public static final String WORK_NAME_PERIODIC = "daynight_periodic_sync";
     public static final String WORK_NAME_ONE_TIME = "daynight_one_time_sync";
+    // Quiet period after the last local change before the outbox is pushed
+    private static final long DEBOUNCE_SECONDS = 3;
 
     public CloudSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
@@ -94,7 +97,9 @@ public class CloudSyncWorker extends Worker {
     }
 
     /**
-     * Trigger a one-time sync immediately (e.g. after playlist creation/deletion).
+     * Trigger a one-time sync shortly after a local change (e.g. playlist creation/deletion).
+     * Debounced: a burst of changes (liking ten songs in a row) replaces the pending
+     * request each time, so the outbox is drained by one sync after the burst.
      */
     public static void triggerImmediateSync(Context context) {
         Constraints constraints = new Constraints.Builder()
@@ -103,9 +108,13 @@ public class CloudSyncWorker extends Worker {
 
         OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(CloudSyncWorker.class)
                 .setConstraints(constraints)
+                .setInitialDelay(DEBOUNCE_SECONDS, TimeUnit.SECONDS)
                 .build();
 
-        WorkManager.getInstance(context).enqueue(request);
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                WORK_NAME_ONE_TIME,
+                ExistingWorkPolicy.REPLACE,
+                request);
         Log.d(TAG, "One-time sync triggered");
     }
 
@@ -114,6 +123,7 @@ public class CloudSyncWorker extends Worker {
      */
     public static void cancelAllSync(Context context) {
         WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME_PERIODIC);
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME_ONE_TIME);
         Log.d(TAG, "All syncs cancelled");
     }
 }
@@ -1,18 +1,32 @@
 package com.midnight.music.data.repository;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.midnight.music.data.db.AppDatabase;
+import com.midnight.music.data.db.LibraryDao;
+import com.midnight.music.data.db.PlayHistoryDao;
 import com.midnight.music.data.db.PlaylistDao;
 import com.midnight.music.data.db.SongDao;
+import com.midnight.music.data.db.SyncOutboxDao;
+import com.midnight.music.data.model.AlbumSummary;
+import com.midnight.music.data.model.ArtistSummary;
+import com.midnight.music.data.model.PlayHistory;
 import com.midnight.music.data.model.Playlist;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.PlaylistWithSongs;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.model.SyncOutboxEntry;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.network.JioSaavnService;
 import com.midnight.music.data.network.SongResponse;
 
@@ -26,8 +40,6 @@ import java.util.concurrent.Executors;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 import com.midnight.music.utils.DownloadManager;
 
@@ -40,26 +52,36 @@ import com.midnight.music.data.repository.RecommendationManager;
 public class MusicRepository {
     private static final String TAG = "MusicRepository";
     private static volatile MusicRepository instance;
+    private static final int PLAY_HISTORY_LIMIT = 1000;
+    // Paged lists keep at most PAGE_SIZE * 6 songs in memory, whatever the library size
+    private static final int PAGE_SIZE = 50;
+    private static final String PREFS_NAME = "daynight_library";
+    private static final String KEY_ARTISTS_BACKFILLED = "song_artists_backfilled";
 
     private final SongDao songDao;
     private final PlaylistDao playlistDao;
+    private final PlayHistoryDao playHistoryDao;
+    private final LibraryDao libraryDao;
     private final JioSaavnService apiService;
     private final Executor diskIO;
     private final Context appContext;
+    private final AppDatabase database;
+    private final SyncOutboxDao outboxDao;
     private RecommendationManager recommendationManager;
 
     private MusicRepository(Context context) {
         this.appContext = context.getApplicationContext();
-        AppDatabase database = AppDatabase.getInstance(context);
+        this.database = AppDatabase.getInstance(context);
         this.songDao = database.songDao();
         this.playlistDao = database.playlistDao();
+        this.playHistoryDao = database.playHistoryDao();
+        this.libraryDao = database.libraryDao();
         this.diskIO = Executors.newSingleThreadExecutor();
+        this.outboxDao = database.syncOutboxDao();
 
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(JioSaavnService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        this.apiService = retrofit.create(JioSaavnService.class);
+        backfillArtistIndex();
+
+        this.apiService = ApiClients.create(JioSaavnService.BASE_URL, JioSaavnService.class);
     }
 
     public static MusicRepository getInstance(Context context) {
@@ -102,6 +124,47 @@ public class MusicRepository {
         });
     }
 
+    /**
+     * Search the songs stored on the device (liked, downloaded, in playlists or recently
+     * played). Works offline. The callback runs on a background thread.
+     */
+    public void searchLocalSongs(String query, int limit, SearchCallback callback) {
+        diskIO.execute(() -> {
+            try {
+                String match = toFtsQuery(query);
+                if (match.isEmpty()) {
+                    callback.onSuccess(new ArrayList<>());
+                    return;
+                }
+                callback.onSuccess(songDao.searchLocal(match, query.trim(), limit));
+            } catch (Exception e) {
+                Log.e(TAG, "Error searching local songs", e);
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Turns free text into an FTS prefix query: every word must match the start of a
+     * word in the title, singers or album. FTS operators typed by the user are dropped.
+     */
+    private static String toFtsQuery(String query) {
+        StringBuilder match = new StringBuilder();
+        if (query == null) {
+            return "";
+        }
+        for (String token : query.toLowerCase(java.util.Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.toString();
+    }
+
     /**
      * Get all liked songs from local database
      */
@@ -113,7 +176,7 @@ public class MusicRepository {
      * Get recently played songs
      */
     public LiveData<List<Song>> getRecentlyPlayedSongs() {
-        return songDao.getRecentSongs(20);
+        return playHistoryDao.getRecentSongs(20);
     }
 
     /**
@@ -131,34 +194,40 @@ public class MusicRepository {
             try {
                 boolean newLikeStatus = !song.isLiked();
                 song.setLiked(newLikeStatus);
-                
-                // Update song in database
-                Song existingSong = songDao.getSongByIdSync(song.getId());
-                if (existingSong != null) {
-                    existingSong.setLiked(newLikeStatus);
-                    songDao.updateLikedStatus(existingSong.getId(), newLikeStatus);
-                } else {
-                    songDao.insert(song);
-                }
 
-                // Get or create Liked Songs playlist
-                String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
-                Playlist likedPlaylist = playlistDao.getPlaylistByNameSync(likedSongsName);
-                if (likedPlaylist == null) {
-                    likedPlaylist = new Playlist(likedSongsName);
-                    likedPlaylist.setCreatedAt(System.currentTimeMillis());
-                    long id = playlistDao.insert(likedPlaylist);
-                    likedPlaylist.setId(id);
-                }
+                // The change and its outbox entries commit together
+                database.runInTransaction(() -> {
+                    // Update song in database
+                    Song existingSong = songDao.getSongByIdSync(song.getId());
+                    if (existingSong != null) {
+                        existingSong.setLiked(newLikeStatus);
+                        songDao.updateLikedStatus(existingSong.getId(), newLikeStatus);
+                    } else {
+                        songDao.insert(song);
+                    }
 
-                // Sync with playlist
-                if (newLikeStatus) {
-                    PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(likedPlaylist.getId(), song.getId());
-                    playlistDao.insert(crossRef);
-                } else {
-                    playlistDao.removeSongFromPlaylist(likedPlaylist.getId(), song.getId());
-                }
+                    // Get or create Liked Songs playlist
+                    String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
+                    Playlist likedPlaylist = playlistDao.getPlaylistByNameSync(likedSongsName);
+                    if (likedPlaylist == null) {
+                        likedPlaylist = new Playlist(likedSongsName);
+                        likedPlaylist.setCreatedAt(System.currentTimeMillis());
+                        long id = playlistDao.insert(likedPlaylist);
+                        likedPlaylist.setId(id);
+                        outboxDao.record(SyncOutboxEntry.playlist(id));
+                    }
 
+                    // Sync with playlist
+                    if (newLikeStatus) {
+                        PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(likedPlaylist.getId(), song.getId());
+                        playlistDao.append(crossRef);
+                    } else {
+                        playlistDao.removeSongFromPlaylist(likedPlaylist.getId(), song.getId());
+                    }
+
+                    outboxDao.record(SyncOutboxEntry.song(song.getId()));
+                    outboxDao.record(SyncOutboxEntry.playlistSong(likedPlaylist.getId(), song.getId()));
+                });
                 triggerSync();
                 callback.onComplete(newLikeStatus);
             } catch (Exception e) {
@@ -169,24 +238,20 @@ public class MusicRepository {
     }
 
     /**
-     * Save song to database (for history/cache)
+     * Record a play in the history. The song row is only written the first time it
+     * is played, so only the recents query is invalidated.
      */
-    public void saveSong(Song song) {
+    public void recordPlay(Song song) {
         diskIO.execute(() -> {
             try {
-                song.setTimestamp(System.currentTimeMillis());
-                // Preserve existing flags before REPLACE overwrites them
-                Song existing = songDao.getSongByIdSync(song.getId());
-                if (existing != null) {
-                    song.setLiked(existing.isLiked());
-                    song.setDownloaded(existing.isDownloaded());
-                    song.setLocalPath(existing.getLocalPath());
-                    songDao.update(song);
-                } else {
-                    songDao.insert(song);
+                songDao.insertIfAbsent(song);
+                long id = playHistoryDao.insert(new PlayHistory(song.getId(), System.currentTimeMillis()));
+                // Append-only: trim now and then instead of on every play
+                if (id % 100 == 0) {
+                    playHistoryDao.trimTo(PLAY_HISTORY_LIMIT);
                 }
             } catch (Exception e) {
-                Log.e(TAG, "Error saving song", e);
+                Log.e(TAG, "Error recording play", e);
             }
         });
     }
@@ -194,10 +259,54 @@ public class MusicRepository {
     // ============ Playlist Operations ============
 
     /**
-     * Get all playlists with their songs
+     * Get summaries of all playlists except the Liked Songs one
      */
-    public LiveData<List<PlaylistWithSongs>> getAllPlaylists() {
-        return playlistDao.getAllPlaylistsWithSongs();
+    public LiveData<List<PlaylistSummary>> getPlaylistSummaries() {
+        return playlistDao.getPlaylistSummaries(appContext.getString(com.midnight.music.R.string.liked_songs));
+    }
+
+    /**
+     * Get summaries of the most recently created playlists
+     */
+    public LiveData<List<PlaylistSummary>> getRecentPlaylistSummaries(int limit) {
+        return playlistDao.getRecentPlaylistSummaries(limit);
+    }
+
+    /**
+     * Get the summary of the Liked Songs playlist
+     */
+    public LiveData<PlaylistSummary> getLikedPlaylistSummary() {
+        return playlistDao.getPlaylistSummaryByName(appContext.getString(com.midnight.music.R.string.liked_songs));
+    }
+
+    /**
+     * Get the summary (name, count, cover) of one playlist
+     */
+    public LiveData<PlaylistSummary> getPlaylistSummary(long playlistId) {
+        return playlistDao.getPlaylistSummary(playlistId);
+    }
+
+    /**
+     * Get the songs of a playlist page by page, in the order they were added
+     */
+    public LiveData<PagingData<Song>> getPlaylistSongsPaged(long playlistId) {
+        return PagingLiveData.getLiveData(
+                new Pager<>(pagingConfig(), () -> playlistDao.getPlaylistSongsPaged(playlistId)));
+    }
+
+    /**
+     * Load all songs of a playlist once, in the paged order, e.g. to queue the
+     * whole playlist. The callback runs on a background thread.
+     */
+    public void loadPlaylistSongs(long playlistId, SearchCallback callback) {
+        diskIO.execute(() -> {
+            try {
+                callback.onSuccess(playlistDao.getPlaylistSongsSync(playlistId));
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading playlist songs", e);
+                callback.onError(e);
+            }
+        });
     }
 
     /**
@@ -218,7 +327,11 @@ public class MusicRepository {
                     return;
                 }
                 Playlist playlist = new Playlist(name);
-                long id = playlistDao.insert(playlist);
+                long id = database.runInTransaction(() -> {
+                    long playlistId = playlistDao.insert(playlist);
+                    outboxDao.record(SyncOutboxEntry.playlist(playlistId));
+                    return playlistId;
+                });
                 triggerSync();
                 callback.onSuccess(id);
             } catch (Exception e) {
@@ -234,7 +347,10 @@ public class MusicRepository {
     public void deletePlaylist(Playlist playlist, Runnable onComplete) {
         diskIO.execute(() -> {
             try {
-                playlistDao.delete(playlist);
+                database.runInTransaction(() -> {
+                    playlistDao.delete(playlist);
+                    outboxDao.record(SyncOutboxEntry.playlist(playlist.getId()));
+                });
                 triggerSync();
                 if (onComplete != null)
                     onComplete.run();
@@ -250,29 +366,33 @@ public class MusicRepository {
     public void addSongToPlaylist(long playlistId, Song song, Runnable onComplete) {
         diskIO.execute(() -> {
             try {
-                // Check if the target playlist is "Liked Songs"
-                Playlist targetPlaylist = playlistDao.getPlaylistByIdSync(playlistId);
-                String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
-                if (targetPlaylist != null && likedSongsName.equals(targetPlaylist.getName())) {
-                    song.setLiked(true);
-                    Song existingSong = songDao.getSongByIdSync(song.getId());
-                    if (existingSong != null) {
-                        existingSong.setLiked(true);
-                        songDao.updateLikedStatus(existingSong.getId(), true);
+                database.runInTransaction(() -> {
+                    // Check if the target playlist is "Liked Songs"
+                    Playlist targetPlaylist = playlistDao.getPlaylistByIdSync(playlistId);
+                    String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
+                    if (targetPlaylist != null && likedSongsName.equals(targetPlaylist.getName())) {
+                        song.setLiked(true);
+                        Song existingSong = songDao.getSongByIdSync(song.getId());
+                        if (existingSong != null) {
+                            existingSong.setLiked(true);
+                            songDao.updateLikedStatus(existingSong.getId(), true);
+                        } else {
+                            songDao.insert(song);
+                        }
+                        outboxDao.record(SyncOutboxEntry.song(song.getId()));
                     } else {
-                        songDao.insert(song);
-                    }
-                } else {
-                    // First ensure the song exists in the database
-                    Song existingSong = songDao.getSongByIdSync(song.getId());
-                    if (existingSong == null) {
-                        songDao.insert(song);
+                        // First ensure the song exists in the database
+                        Song existingSong = songDao.getSongByIdSync(song.getId());
+                        if (existingSong == null) {
+                            songDao.insert(song);
+                        }
                     }
-                }
 
-                // Then create the cross-reference
-                PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(playlistId, song.getId());
-                playlistDao.insert(crossRef);
+                    // Then create the cross-reference
+                    PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(playlistId, song.getId());
+                    playlistDao.append(crossRef);
+                    outboxDao.record(SyncOutboxEntry.playlistSong(playlistId, song.getId()));
+                });
 
                 triggerSync();
                 if (onComplete != null)
@@ -298,23 +418,20 @@ public class MusicRepository {
                     song.setTimestamp(0);
                     if (isLikedPlaylist) {
                         song.setLiked(true);
-                        Song existingSong = songDao.getSongByIdSync(song.getId());
-                        if (existingSong != null) {
-                            existingSong.setLiked(true);
-                            songDao.updateLikedStatus(existingSong.getId(), true);
-                        } else {
-                            songDao.insert(song);
-                        }
-                    } else {
-                        Song existingSong = songDao.getSongByIdSync(song.getId());
-                        if (existingSong == null) {
-                            songDao.insert(song);
-                        }
                     }
-
-                    PlaylistSongCrossRef crossRef = new PlaylistSongCrossRef(playlistId, song.getId());
-                    playlistDao.insert(crossRef);
                 }
+                List<SyncOutboxEntry> changes = new ArrayList<>();
+                for (Song song : songs) {
+                    if (isLikedPlaylist) {
+                        changes.add(SyncOutboxEntry.song(song.getId()));
+                    }
+                    changes.add(SyncOutboxEntry.playlistSong(playlistId, song.getId()));
+                }
+                // One transaction for the whole import instead of a few commits per song
+                database.runInTransaction(() -> {
+                    playlistDao.importSongs(playlistId, songs, isLikedPlaylist);
+                    outboxDao.record(changes);
+                });
                 triggerSync();
                 if (onComplete != null)
                     onComplete.run();
@@ -330,18 +447,22 @@ public class MusicRepository {
     public void removeSongFromPlaylist(long playlistId, String songId, Runnable onComplete) {
         diskIO.execute(() -> {
             try {
-                // Check if the target playlist is "Liked Songs"
-                Playlist targetPlaylist = playlistDao.getPlaylistByIdSync(playlistId);
-                String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
-                if (targetPlaylist != null && likedSongsName.equals(targetPlaylist.getName())) {
-                    Song existingSong = songDao.getSongByIdSync(songId);
-                    if (existingSong != null) {
-                        existingSong.setLiked(false);
-                        songDao.updateLikedStatus(songId, false);
+                database.runInTransaction(() -> {
+                    // Check if the target playlist is "Liked Songs"
+                    Playlist targetPlaylist = playlistDao.getPlaylistByIdSync(playlistId);
+                    String likedSongsName = appContext.getString(com.midnight.music.R.string.liked_songs);
+                    if (targetPlaylist != null && likedSongsName.equals(targetPlaylist.getName())) {
+                        Song existingSong = songDao.getSongByIdSync(songId);
+                        if (existingSong != null) {
+                            existingSong.setLiked(false);
+                            songDao.updateLikedStatus(songId, false);
+                            outboxDao.record(SyncOutboxEntry.song(songId));
+                        }
                     }
-                }
 
-                playlistDao.removeSongFromPlaylist(playlistId, songId);
+                    playlistDao.removeSongFromPlaylist(playlistId, songId);
+                    outboxDao.record(SyncOutboxEntry.playlistSong(playlistId, songId));
+                });
                 triggerSync();
                 if (onComplete != null)
                     onComplete.run();
@@ -351,13 +472,40 @@ public class MusicRepository {
         });
     }
 
+    /**
+     * Move a song of a playlist to {@code toIndex}. Usually only the moved song's row
+     * is rewritten; once the playlist's gaps run out it is respaced in the same
+     * transaction, and every respaced row is queued for sync.
+     */
+    public void moveSongInPlaylist(long playlistId, String songId, int toIndex) {
+        diskIO.execute(() -> {
+            try {
+                database.runInTransaction(() -> {
+                    List<String> rewritten = playlistDao.moveSong(playlistId, songId, toIndex);
+                    List<SyncOutboxEntry> entries = new ArrayList<>(rewritten.size());
+                    for (String rewrittenId : rewritten) {
+                        entries.add(SyncOutboxEntry.playlistSong(playlistId, rewrittenId));
+                    }
+                    outboxDao.record(entries);
+                });
+                triggerSync();
+            } catch (Exception e) {
+                Log.e(TAG, "Error moving song in playlist", e);
+            }
+        });
+    }
+
     /**
      * Rename a playlist
      */
     public void renamePlaylist(long playlistId, String newName, Runnable onComplete) {
         diskIO.execute(() -> {
             try {
-                playlistDao.updatePlaylistName(playlistId, newName);
+                database.runInTransaction(() -> {
+                    playlistDao.updatePlaylistName(playlistId, newName);
+                    outboxDao.record(SyncOutboxEntry.playlist(playlistId));
+                });
+                triggerSync();
                 if (onComplete != null)
                     onComplete.run();
             } catch (Exception e) {
@@ -379,7 +527,12 @@ public class MusicRepository {
                 } else {
                     Playlist liked = new Playlist(likedSongsName);
                     liked.setCreatedAt(System.currentTimeMillis());
-                    long id = playlistDao.insert(liked);
+                    long id = database.runInTransaction(() -> {
+                        long playlistId = playlistDao.insert(liked);
+                        outboxDao.record(SyncOutboxEntry.playlist(playlistId));
+                        return playlistId;
+                    });
+                    triggerSync();
                     callback.onSuccess(id);
                 }
             } catch (Exception e) {
@@ -392,10 +545,63 @@ public class MusicRepository {
     // ============ Download Operations ============
 
     /**
-     * Get all downloaded songs from local database
+     * Get downloaded songs page by page
+     */
+    public LiveData<PagingData<Song>> getDownloadedSongsPaged() {
+        return PagingLiveData.getLiveData(new Pager<>(pagingConfig(), songDao::getDownloadedSongsPaged));
+    }
+
+    /**
+     * Load all downloaded songs once, in the paged order. The callback runs on a
+     * background thread.
+     */
+    public void loadDownloadedSongs(SearchCallback callback) {
+        diskIO.execute(() -> {
+            try {
+                callback.onSuccess(songDao.getDownloadedSongsSync());
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading downloaded songs", e);
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Albums of the library, grouped in SQL and paged.
+     */
+    public LiveData<PagingData<AlbumSummary>> getAlbumsPaged() {
+        return PagingLiveData.getLiveData(new Pager<>(pagingConfig(), libraryDao::getAlbumsPaged));
+    }
+
+    /**
+     * Artists of the library, grouped in SQL over the song-artist join table and paged.
+     */
+    public LiveData<PagingData<ArtistSummary>> getArtistsPaged() {
+        return PagingLiveData.getLiveData(new Pager<>(pagingConfig(), libraryDao::getArtistsPaged));
+    }
+
+    /**
+     * Fills song_artists for songs stored before the table existed (MIGRATION_7_8).
+     * Runs until it completes once; later writes maintain the rows themselves.
      */
-    public LiveData<List<Song>> getDownloadedSongs() {
-        return songDao.getDownloadedSongs();
+    private void backfillArtistIndex() {
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_ARTISTS_BACKFILLED, false)) {
+            return;
+        }
+        diskIO.execute(() -> {
+            try {
+                int indexed = libraryDao.indexSongArtists();
+                prefs.edit().putBoolean(KEY_ARTISTS_BACKFILLED, true).apply();
+                Log.d(TAG, "Backfilled artists of " + indexed + " songs");
+            } catch (Exception e) {
+                Log.e(TAG, "Error indexing song artists", e);
+            }
+        });
+    }
+
+    private static PagingConfig pagingConfig() {
+        return new PagingConfig(PAGE_SIZE, PAGE_SIZE, true, PAGE_SIZE * 2, PAGE_SIZE * 6);
     }
 
     /**
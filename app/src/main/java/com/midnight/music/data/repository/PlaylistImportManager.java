@@ -6,6 +6,8 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.network.ApiClients;
+import com.midnight.music.data.network.HostRateLimiter;
 import com.midnight.music.data.network.JioSaavnService;
 import com.midnight.music.data.network.SongResponse;
 import com.midnight.music.data.network.PlaylistResponse;
@@ -18,8 +20,6 @@ import java.util.concurrent.Executors;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class PlaylistImportManager {
     private static final String TAG = "PlaylistImportManager";
@@ -40,11 +40,7 @@ public class PlaylistImportManager {
         this.musicRepository = MusicRepository.getInstance(context);
         this.networkExecutor = Executors.newFixedThreadPool(4); // Separate executor for network tasks
 
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(JioSaavnService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        this.apiService = retrofit.create(JioSaavnService.class);
+        this.apiService = ApiClients.create(JioSaavnService.BASE_URL, JioSaavnService.class);
     }
 
     public static PlaylistImportManager getInstance(Context context) {
@@ -110,22 +106,19 @@ public class PlaylistImportManager {
 
                 // 2. Fetch the embed page which has __NEXT_DATA__ with track info
                 String embedUrl = "https://open.spotify.com/embed/playlist/" + playlistId;
-                java.net.URL spotifyUrl = new java.net.URL(embedUrl);
-                java.net.HttpURLConnection conn = (java.net.HttpURLConnection) spotifyUrl.openConnection();
-                conn.setRequestMethod("GET");
-                conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Linux; Android 13)");
-
-                java.io.BufferedReader in = new java.io.BufferedReader(
-                        new java.io.InputStreamReader(conn.getInputStream()));
-                String inputLine;
-                StringBuilder content = new StringBuilder();
-                while ((inputLine = in.readLine()) != null) {
-                    content.append(inputLine);
+                okhttp3.Request request = new okhttp3.Request.Builder()
+                        .url(embedUrl)
+                        .header("User-Agent", "Mozilla/5.0 (Linux; Android 13)")
+                        .build();
+                String html;
+                try (okhttp3.Response response = ApiClients.getHttpClient().newCall(request).execute()) {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        throw new java.io.IOException("Spotify embed returned " + response.code());
+                    }
+                    // The page is matched line-joined, as it was read before
+                    html = response.body().string().replace("\n", "").replace("\r", "");
                 }
-                in.close();
-                conn.disconnect();
 
-                String html = content.toString();
                 List<String> searchQueries = new ArrayList<>();
 
                 // 3. Parse __NEXT_DATA__ JSON which contains title+subtitle pairs
@@ -196,17 +189,16 @@ public class PlaylistImportManager {
         new android.os.Handler(android.os.Looper.getMainLooper())
                 .post(() -> callback.onProgress(0, total, "Starting resolution..."));
 
-        java.util.concurrent.CountDownLatch latch = new java.util.concurrent.CountDownLatch(total);
+        if (total == 0) {
+            finishResolution(resolvedSongs, callback);
+            return;
+        }
+
         java.util.concurrent.atomic.AtomicInteger currentProgress = new java.util.concurrent.atomic.AtomicInteger(0);
 
+        // The host's limiter paces the searches (and backs off on 429) instead of a fixed sleep
         for (String query : queries) {
-            // Rate limiting sleep to prevent 429 Too Many Requests from JioSaavn
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException ignored) {
-            }
-
-            apiService.searchSongs(query, false).enqueue(new Callback<List<SongResponse>>() {
+            HostRateLimiter.enqueue(apiService.searchSongs(query, false), new Callback<List<SongResponse>>() {
                 @Override
                 public void onResponse(@NonNull Call<List<SongResponse>> call,
                         @NonNull Response<List<SongResponse>> response) {
@@ -220,31 +212,29 @@ public class PlaylistImportManager {
                     } catch (Exception e) {
                         Log.e(TAG, "Error resolving track: " + query, e);
                     } finally {
-                        int progress = currentProgress.incrementAndGet();
-                        new android.os.Handler(android.os.Looper.getMainLooper())
-                                .post(() -> callback.onProgress(progress, total, query));
-                        latch.countDown();
+                        onResolved(query);
                     }
                 }
 
                 @Override
                 public void onFailure(@NonNull Call<List<SongResponse>> call, @NonNull Throwable t) {
                     Log.e(TAG, "JioSaavn search failed for: " + query, t);
+                    onResolved(query + " (Failed)");
+                }
+
+                private void onResolved(String label) {
                     int progress = currentProgress.incrementAndGet();
                     new android.os.Handler(android.os.Looper.getMainLooper())
-                            .post(() -> callback.onProgress(progress, total, query + " (Failed)"));
-                    latch.countDown();
+                            .post(() -> callback.onProgress(progress, total, label));
+                    if (progress == total) {
+                        finishResolution(resolvedSongs, callback);
+                    }
                 }
             });
         }
+    }
 
-        try {
-            // Wait up to 2 minutes for all network calls to finish
-            latch.await(2, java.util.concurrent.TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            Log.e(TAG, "Timeout waiting for JioSaavn results", e);
-        }
-
+    private void finishResolution(List<Song> resolvedSongs, ImportCallback callback) {
         new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
             if (!resolvedSongs.isEmpty()) {
                 callback.onSuccess(new ArrayList<>(resolvedSongs));
@@ -5,6 +5,8 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.network.ApiClients;
+import com.midnight.music.data.network.HostRateLimiter;
 import com.midnight.music.data.network.JioSaavnService;
 import com.midnight.music.data.network.LastFmService;
 import com.midnight.music.data.network.SongResponse;
@@ -23,8 +25,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
  * Manages song recommendations using Last.fm's similar tracks API,
@@ -50,17 +50,8 @@ public class RecommendationManager {
     private RecommendationManager(String lastFmApiKey) {
         this.apiKey = lastFmApiKey;
 
-        Retrofit lastFmRetrofit = new Retrofit.Builder()
-                .baseUrl(LastFmService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        this.lastFmService = lastFmRetrofit.create(LastFmService.class);
-
-        Retrofit saavnRetrofit = new Retrofit.Builder()
-                .baseUrl(JioSaavnService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        this.saavnService = saavnRetrofit.create(JioSaavnService.class);
+        this.lastFmService = ApiClients.create(LastFmService.BASE_URL, LastFmService.class);
+        this.saavnService = ApiClients.create(JioSaavnService.BASE_URL, JioSaavnService.class);
     }
 
     public static RecommendationManager getInstance(String apiKey) {
@@ -128,12 +119,10 @@ public class RecommendationManager {
 
         // --- NEW SAAVN SUGGESTIONS IMPLEMENTATION ---
         
-        // We need a Retrofit instance that uses SaavnApiService for suggestions
-        Retrofit saavnRetrofit = new Retrofit.Builder()
-                .baseUrl(com.midnight.music.data.network.SaavnApiService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        com.midnight.music.data.network.SaavnApiService newSaavnApi = saavnRetrofit.create(com.midnight.music.data.network.SaavnApiService.class);
+        // Shared SaavnApiService for suggestions (created once, not per call)
+        com.midnight.music.data.network.SaavnApiService newSaavnApi = ApiClients.create(
+                com.midnight.music.data.network.SaavnApiService.BASE_URL,
+                com.midnight.music.data.network.SaavnApiService.class);
 
         newSaavnApi.getSimilarSongs(song.getId(), limit)
                 .enqueue(new Callback<com.midnight.music.data.network.SaavnSuggestionsResponse>() {
@@ -240,14 +229,15 @@ public class RecommendationManager {
         executor.execute(() -> {
             List<Song> resolvedSongs = Collections.synchronizedList(new ArrayList<>());
             Set<String> addedIds = Collections.synchronizedSet(new HashSet<>());
-            int maxResolve = Math.min(lastFmTracks.size(), 15); // Cap at 15 to avoid rate limits
+            int maxResolve = Math.min(lastFmTracks.size(), 15); // Enough for one recommendation row
             CountDownLatch latch = new CountDownLatch(maxResolve);
 
             for (int i = 0; i < maxResolve; i++) {
                 LastFmService.LastFmTrack track = lastFmTracks.get(i);
                 String query = track.name + " " + track.getArtistName();
 
-                saavnService.searchSongs(query, false).enqueue(new Callback<List<SongResponse>>() {
+                // Shares the Saavn limiter with playlist imports
+                HostRateLimiter.enqueue(saavnService.searchSongs(query, false), new Callback<List<SongResponse>>() {
                     @Override
                     public void onResponse(@NonNull Call<List<SongResponse>> call,
                                            @NonNull Response<List<SongResponse>> response) {
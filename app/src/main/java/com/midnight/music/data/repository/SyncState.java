@@ -0,0 +1,64 @@
+package com.midnight.music.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.midnight.music.data.model.SyncOutboxEntry;
+
+/**
+ * Local bookkeeping for incremental cloud pulls: per-table watermarks (the newest cloud
+ * {@code updated_at} already pulled) and the user they belong to. Local changes waiting
+ * to be pushed live in the sync_outbox table.
+ */
+public class SyncState {
+    private static final String PREF_NAME = "daynight_sync_state";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_WATERMARK = "watermark_";
+
+    private static volatile SyncState instance;
+    private final SharedPreferences prefs;
+
+    private SyncState(Context context) {
+        this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static SyncState getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SyncState.class) {
+                if (instance == null) {
+                    instance = new SyncState(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The {@code updated_at} of the newest cloud row already pulled, or null before
+     * the first pull.
+     */
+    String getWatermark(String table) {
+        return prefs.getString(KEY_WATERMARK + table, null);
+    }
+
+    void setWatermark(String table, String updatedAt) {
+        prefs.edit().putString(KEY_WATERMARK + table, updatedAt).apply();
+    }
+
+    /**
+     * Ties the state to {@code userId}. Returns true when this is the user's first sync
+     * on this device: watermarks are reset and the caller should push everything.
+     */
+    synchronized boolean bindUser(String userId) {
+        if (userId == null || userId.equals(prefs.getString(KEY_USER_ID, null))) {
+            return false;
+        }
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String table : new String[]{SyncOutboxEntry.TABLE_SONGS, SyncOutboxEntry.TABLE_PLAYLISTS,
+                SyncOutboxEntry.TABLE_PLAYLIST_SONGS}) {
+            editor.remove(KEY_WATERMARK + table);
+        }
+        editor.putString(KEY_USER_ID, userId).apply();
+        return true;
+    }
+}
@@ -8,19 +8,24 @@ import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.data.repository.MusicRepository;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.network.SaavnApiService;
 import com.midnight.music.data.network.SaavnSearchResponse;
 import com.midnight.music.data.network.SaavnSongResult;
 import com.midnight.music.service.MusicService;
 import com.midnight.music.utils.AudioCacheManager;
+import com.midnight.music.utils.AudioPrefetcher;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -31,8 +36,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class MusicPlayerManager {
     private static final String TAG = "MusicPlayerManager";
@@ -54,6 +57,23 @@ public class MusicPlayerManager {
     // Auto-queue recommendations (only for search-sourced songs)
     private boolean autoQueueEnabled = false;
     private volatile boolean isFetchingRecommendations = false;
+
+    // Gapless playback: the current song plus the next few resolved queue entries are
+    // loaded into ExoPlayer's own playlist so it can pre-buffer and transition without
+    // tearing down the renderers.
+    private static final int GAPLESS_WINDOW_SIZE = 3;
+    // Queue index of every media item currently loaded in the player, in player order
+    private final List<Integer> windowIndices = new ArrayList<>();
+
+    // Background caching of the next track only starts once the current one has been
+    // listened to this long, so skipping through songs doesn't pull their audio.
+    // Stored in the app prefs and editable from Settings
+    public static final String CACHE_LISTEN_THRESHOLD_KEY = "cacheListenThresholdMs";
+    public static final long DEFAULT_CACHE_LISTEN_THRESHOLD_MS = 15_000;
+    private static final String PREFS_NAME = "DaynightMusicPrefs";
+    private long cacheListenThresholdMs;
+    private boolean nextSongCacheStarted = false;
+    private static final String PREFETCH_OWNER = "player_queue";
     private static final String LASTFM_API_KEY = com.midnight.music.BuildConfig.LASTFM_API_KEY;
 
     private final MutableLiveData<Boolean> isPlayingLiveData = new MutableLiveData<>(false);
@@ -68,18 +88,21 @@ public class MusicPlayerManager {
         void onSongChanged(Song song);
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     private MusicPlayerManager(Context context) {
         this.context = context.getApplicationContext();
-        player = new ExoPlayer.Builder(context).build();
+        audioCacheManager = AudioCacheManager.getInstance(context);
+        cacheListenThresholdMs = this.context
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getLong(CACHE_LISTEN_THRESHOLD_KEY, DEFAULT_CACHE_LISTEN_THRESHOLD_MS);
+        // Stream through the audio cache so played bytes are cached as they are read
+        player = new ExoPlayer.Builder(context)
+                .setMediaSourceFactory(new DefaultMediaSourceFactory(audioCacheManager.getDataSourceFactory()))
+                .build();
         queue = new ArrayList<>();
         currentIndex = -1;
-        audioCacheManager = AudioCacheManager.getInstance(context);
 
-        Retrofit saavnRetrofit = new Retrofit.Builder()
-                .baseUrl(SaavnApiService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        this.saavnApiService = saavnRetrofit.create(SaavnApiService.class);
+        this.saavnApiService = ApiClients.create(SaavnApiService.BASE_URL, SaavnApiService.class);
 
         player.addListener(new Player.Listener() {
             @Override
@@ -155,9 +178,26 @@ public class MusicPlayerManager {
                 }
             }
 
+            @Override
+            public void onPlayWhenReadyChanged(boolean playWhenReady, int reason) {
+                if (reason == Player.PLAY_WHEN_READY_CHANGE_REASON_END_OF_MEDIA_ITEM) {
+                    // End-of-track sleep timer paused us before the next window item
+                    com.midnight.music.utils.SleepTimerManager.getInstance().shouldPauseAtEndOfTrack();
+                    player.setPauseAtEndOfMediaItems(false);
+                }
+            }
+
             @Override
             public void onMediaItemTransition(MediaItem mediaItem, int reason) {
                 try {
+                    // ExoPlayer moved inside the gapless window on its own (or via a seek);
+                    // PLAYLIST_CHANGED transitions come from playCurrentSong() which already
+                    // set currentIndex.
+                    if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO
+                            || reason == Player.MEDIA_ITEM_TRANSITION_REASON_SEEK) {
+                        syncWindowAfterTransition();
+                    }
+
                     if (currentIndex >= 0 && currentIndex < queue.size()) {
                         Song song = queue.get(currentIndex);
                         if (callback != null) {
@@ -206,6 +246,17 @@ public class MusicPlayerManager {
                 try {
                     if (player != null && player.isPlaying()) {
                         currentPosition.postValue(player.getCurrentPosition());
+
+                        if (!nextSongCacheStarted && player.getCurrentPosition() >= cacheListenThresholdMs) {
+                            nextSongCacheStarted = true;
+                            cacheNextSong();
+                        }
+                    }
+                    // With several items loaded, "end of track" must stop ExoPlayer before
+                    // it transitions, since STATE_ENDED only fires at the end of the window
+                    if (player != null) {
+                        player.setPauseAtEndOfMediaItems(
+                                com.midnight.music.utils.SleepTimerManager.getInstance().isEndOfTrackMode());
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Error updating position", e);
@@ -248,6 +299,7 @@ public class MusicPlayerManager {
                 queue.clear();
                 queue.add(song);
                 currentIndex = 0;
+                windowIndices.clear();
             }
             playCurrentSong();
             // Pre-fetch is now handled centrally inside playCurrentSong()
@@ -275,6 +327,7 @@ public class MusicPlayerManager {
                 queue.clear();
                 queue.addAll(songs);
                 currentIndex = startIndex;
+                windowIndices.clear();
             }
             playCurrentSong();
         } catch (Exception e) {
@@ -307,6 +360,8 @@ public class MusicPlayerManager {
                 if (queue.size() == 1) {
                     currentIndex = 0;
                     playCurrentSong();
+                } else {
+                    extendUpcomingWindow();
                 }
             }
         } catch (Exception e) {
@@ -324,6 +379,7 @@ public class MusicPlayerManager {
             synchronized (queue) {
                 if (currentIndex >= 0) {
                     queue.add(currentIndex + 1, song);
+                    refreshUpcomingWindow();
                 } else {
                     queue.add(song);
                     currentIndex = 0;
@@ -420,12 +476,7 @@ public class MusicPlayerManager {
                 // This covers ALL play pathways: skipToNext, STATE_ENDED, queue tap, etc.
                 Log.d(TAG, "playCurrentSong: idx=" + currentIndex + ", size=" + queue.size()
                         + ", autoQ=" + autoQueueEnabled + ", fetching=" + isFetchingRecommendations);
-                if (autoQueueEnabled && !isFetchingRecommendations
-                        && currentIndex >= queue.size() - 2 && song != null) {
-                    Log.d(TAG, "Pre-fetch triggered: currentIndex=" + currentIndex
-                            + ", queueSize=" + queue.size());
-                    fetchAutoQueueRecommendations(song);
-                }
+                maybePrefetchRecommendations(song);
             }
 
             if (song == null) {
@@ -439,108 +490,266 @@ public class MusicPlayerManager {
                 return;
             }
 
-            final String mediaUrl = song.getMediaUrl();
-            final Song finalSong = song;
+            synchronized (queue) {
+                // Already pre-loaded in the gapless window: seek to it so ExoPlayer reuses
+                // what it has buffered. onMediaItemTransition takes care of the rest.
+                int windowPos = windowIndices.indexOf(currentIndex);
+                if (windowPos > 0 && windowIndices.size() == player.getMediaItemCount()) {
+                    Log.d(TAG, "Playing from gapless window: " + song.getSong());
+                    player.seekTo(windowPos, 0);
+                    player.play();
+                    return;
+                }
 
-            // Build MediaMetadata
-            androidx.media3.common.MediaMetadata metadata = new androidx.media3.common.MediaMetadata.Builder()
-                    .setTitle(song.getSong())
-                    .setArtist(song.getSingers())
-                    .setAlbumTitle(song.getAlbum())
-                    .setArtworkUri(Uri.parse(song.getImageUrl()))
-                    .build();
+                MediaItem mediaItem = buildMediaItem(song);
+                windowIndices.clear();
+                windowIndices.add(currentIndex);
+                player.setMediaItem(mediaItem);
+                appendUpcomingToWindow();
+            }
 
-            // 1. Check if the song is permanently downloaded
-            if (song.isDownloaded() && song.getLocalPath() != null) {
-                java.io.File localFile = new java.io.File(song.getLocalPath());
-                if (localFile.exists()) {
-                    Log.d(TAG, "Playing from download: " + song.getLocalPath());
+            player.prepare();
+            player.play();
+            onSongStarted(song);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in playCurrentSong", e);
+        }
+    }
 
-                    MediaItem mediaItem = new MediaItem.Builder()
-                            .setUri(Uri.fromFile(localFile))
-                            .setMediaMetadata(metadata)
-                            .setMediaId(song.getId())
-                            .build();
+    /**
+     * Builds the MediaItem for a song, preferring a permanent download over the
+     * network URL. Network URLs go through the cache-aware data source, so cached
+     * audio is still read from disk. Returns null if the song has no media URL yet.
+     */
+    private MediaItem buildMediaItem(Song song) {
+        final String mediaUrl = song.getMediaUrl();
+        if (mediaUrl == null) {
+            return null;
+        }
 
-                    player.setMediaItem(mediaItem);
-                    player.prepare();
-                    player.play();
+        // Build MediaMetadata
+        androidx.media3.common.MediaMetadata metadata = new androidx.media3.common.MediaMetadata.Builder()
+                .setTitle(song.getSong())
+                .setArtist(song.getSingers())
+                .setAlbumTitle(song.getAlbum())
+                .setArtworkUri(Uri.parse(song.getImageUrl()))
+                .build();
 
-                    MusicService.startService(context);
+        Uri uri;
+        if (hasLocalFile(song)) {
+            // 1. The song is permanently downloaded
+            Log.d(TAG, "Source is download: " + song.getLocalPath());
+            uri = Uri.fromFile(new java.io.File(song.getLocalPath()));
+        } else {
+            // 2. Stream, reading through the audio cache
+            Log.d(TAG, "Source is " + (audioCacheManager.isUrlCached(mediaUrl) ? "cache: " : "network: ")
+                    + mediaUrl);
+            uri = Uri.parse(mediaUrl);
+        }
 
-                    mainHandler.post(() -> {
-                        MusicRepository.getInstance(context).saveSong(finalSong);
-                        currentSongLiveData.setValue(finalSong);
-                        isPlayingLiveData.setValue(true);
-                    });
-                    return;
-                }
+        return new MediaItem.Builder()
+                .setUri(uri)
+                .setMediaMetadata(metadata)
+                .setMediaId(song.getId())
+                .build();
+    }
+
+    private boolean hasLocalFile(Song song) {
+        return song.isDownloaded() && song.getLocalPath() != null
+                && new java.io.File(song.getLocalPath()).exists();
+    }
+
+    /**
+     * Side effects of a song becoming the current one: foreground service, play history
+     * and UI state.
+     */
+    private void onSongStarted(Song song) {
+        // Start foreground service for media notification
+        MusicService.startService(context);
+
+        // Only the next track may keep pulling bytes in the background: the player
+        // streams the current one through the cache itself, so a job for it would fetch
+        // the same URL twice. Both are pinned so eviction never drops them mid-play
+        nextSongCacheStarted = false;
+        List<String> keepKeys = new ArrayList<>();
+        List<String> pinnedUrls = new ArrayList<>();
+        pinnedUrls.add(song.getMediaUrl());
+        Song next = getNextSong();
+        if (next != null) {
+            keepKeys.add(next.getId());
+            if (next.getMediaUrl() != null) {
+                pinnedUrls.add(next.getMediaUrl());
             }
+        }
+        audioCacheManager.cancelCacheJob(song.getId());
+        audioCacheManager.cancelCacheJobsExcept(keepKeys);
+        audioCacheManager.setPinnedUrls(pinnedUrls);
+        // The next entry's prefix right away, the full file once the listen threshold passes
+        AudioPrefetcher.getInstance(context).setVisibleSongs(PREFETCH_OWNER,
+                next != null ? Collections.singletonList(next) : Collections.emptyList());
+
+        // Ensure UI is updated immediately
+        mainHandler.post(() -> {
+            MusicRepository.getInstance(context).recordPlay(song);
+            currentSongLiveData.setValue(song);
+            isPlayingLiveData.setValue(true);
+        });
+    }
 
-            // 2. Check if the song is in the streaming cache
-            if (audioCacheManager.isUrlCached(mediaUrl)) {
-                String cachedPath = audioCacheManager.getCachedFilePath(mediaUrl);
-                Log.d(TAG, "Playing from cache: " + cachedPath);
+    private Song getNextSong() {
+        synchronized (queue) {
+            int next = currentIndex >= 0 ? nextQueueIndex(currentIndex) : -1;
+            return next >= 0 ? queue.get(next) : null;
+        }
+    }
+
+    /**
+     * Pulls the whole next track into the audio cache. Called once the current
+     * track passed the listen threshold; cancelled by onSongStarted() if the user
+     * moves somewhere else.
+     */
+    private void cacheNextSong() {
+        Song next = getNextSong();
+        if (next == null || next.getMediaUrl() == null || hasLocalFile(next)
+                || audioCacheManager.isUrlCached(next.getMediaUrl())) {
+            return;
+        }
+        // The full-file job supersedes the prefix prefetch for the same song
+        AudioPrefetcher.getInstance(context).clear(PREFETCH_OWNER);
 
-                MediaItem mediaItem = new MediaItem.Builder()
-                        .setUri(Uri.parse("file://" + cachedPath))
-                        .setMediaMetadata(metadata)
-                        .setMediaId(song.getId())
-                        .build();
+        audioCacheManager.cacheAudioFile(next.getId(), next.getMediaUrl(), new AudioCacheManager.CacheListener() {
+            @Override
+            public void onCacheComplete(String filePath) {
+                Log.d(TAG, "Cached next song: " + next.getSong());
+            }
 
-                player.setMediaItem(mediaItem);
-                player.prepare();
-                player.play();
+            @Override
+            public void onCacheError(Exception e) {
+                Log.e(TAG, "Failed to cache next song: " + e.getMessage());
+            }
+        });
+    }
 
-                // Start foreground service for media notification
-                MusicService.startService(context);
+    private void maybePrefetchRecommendations(Song song) {
+        if (autoQueueEnabled && !isFetchingRecommendations
+                && currentIndex >= queue.size() - 2 && song != null) {
+            Log.d(TAG, "Pre-fetch triggered: currentIndex=" + currentIndex
+                    + ", queueSize=" + queue.size());
+            fetchAutoQueueRecommendations(song);
+        }
+    }
 
-                // Ensure UI is updated immediately
-                mainHandler.post(() -> {
-                    MusicRepository.getInstance(context).saveSong(finalSong);
-                    currentSongLiveData.setValue(finalSong);
-                    isPlayingLiveData.setValue(true);
-                });
-            } else {
-                // Not cached, start playing from URL and cache in background
-                Log.d(TAG, "Playing from network: " + mediaUrl);
+    /**
+     * Queue index that follows {@code index} in play order, honouring repeat-all
+     * wrap-around. Returns -1 at the end of the queue.
+     */
+    private int nextQueueIndex(int index) {
+        if (index < queue.size() - 1) {
+            return index + 1;
+        }
+        if (repeatMode == Player.REPEAT_MODE_ALL && !queue.isEmpty()) {
+            return 0;
+        }
+        return -1;
+    }
 
-                MediaItem mediaItem = new MediaItem.Builder()
-                        .setUri(Uri.parse(mediaUrl))
-                        .setMediaMetadata(metadata)
-                        .setMediaId(song.getId())
-                        .build();
+    /**
+     * Tops the player's playlist up with upcoming queue entries until the gapless
+     * window is full. Stops at the first entry without a media URL; that one is
+     * resolved by playCurrentSong() once playback reaches it. Caller holds the queue lock.
+     */
+    private void appendUpcomingToWindow() {
+        if (windowIndices.isEmpty()) {
+            return;
+        }
+        int index = windowIndices.get(windowIndices.size() - 1);
+        while (windowIndices.size() < GAPLESS_WINDOW_SIZE) {
+            index = nextQueueIndex(index);
+            if (index < 0) {
+                break;
+            }
+            MediaItem item = buildMediaItem(queue.get(index));
+            if (item == null) {
+                break;
+            }
+            player.addMediaItem(item);
+            windowIndices.add(index);
+        }
+    }
 
-                player.setMediaItem(mediaItem);
-                player.prepare();
-                player.play();
+    /**
+     * Called after songs were appended to the end of the queue. The loaded items
+     * stay valid, so only the free slots of the window are filled. A window that
+     * already wrapped around to the start of the queue (repeat all) is rebuilt,
+     * since the new songs now come before the wrapped items.
+     */
+    private void extendUpcomingWindow() {
+        synchronized (queue) {
+            if (windowIndices.isEmpty() || windowIndices.size() != player.getMediaItemCount()
+                    || currentIndex < 0 || currentIndex >= queue.size()) {
+                return;
+            }
+            for (int i = 1; i < windowIndices.size(); i++) {
+                if (windowIndices.get(i) <= windowIndices.get(i - 1)) {
+                    refreshUpcomingWindow();
+                    return;
+                }
+            }
+            appendUpcomingToWindow();
+        }
+    }
 
-                // Start foreground service for media notification
-                MusicService.startService(context);
-
-                // Ensure UI is updated immediately
-                mainHandler.post(() -> {
-                    MusicRepository.getInstance(context).saveSong(finalSong);
-                    currentSongLiveData.setValue(finalSong);
-                    isPlayingLiveData.setValue(true);
-                });
-
-                // Start caching in background for future use
-                audioCacheManager.cacheAudioFile(mediaUrl, new AudioCacheManager.CacheListener() {
-                    @Override
-                    public void onCacheComplete(String filePath) {
-                        Log.d(TAG, "Cached audio successfully: " + filePath);
-                    }
+    /**
+     * Rebuilds everything after the playing item after the queue, shuffle or repeat
+     * state changed, without interrupting the current song.
+     */
+    private void refreshUpcomingWindow() {
+        synchronized (queue) {
+            if (windowIndices.isEmpty() || windowIndices.size() != player.getMediaItemCount()
+                    || currentIndex < 0 || currentIndex >= queue.size()) {
+                return;
+            }
+            int playing = player.getCurrentMediaItemIndex();
+            int count = player.getMediaItemCount();
+            if (playing + 1 < count) {
+                player.removeMediaItems(playing + 1, count);
+            }
+            if (playing > 0) {
+                player.removeMediaItems(0, playing);
+            }
+            windowIndices.clear();
+            windowIndices.add(currentIndex);
+            appendUpcomingToWindow();
+        }
+    }
 
-                    @Override
-                    public void onCacheError(Exception e) {
-                        Log.e(TAG, "Failed to cache audio: " + e.getMessage());
-                    }
-                });
+    /**
+     * Called when ExoPlayer moved to another item of the gapless window: syncs
+     * currentIndex, drops the items that already played and tops the window up.
+     */
+    private void syncWindowAfterTransition() {
+        Song song;
+        synchronized (queue) {
+            int playing = player.getCurrentMediaItemIndex();
+            if (playing < 0 || playing >= windowIndices.size()
+                    || windowIndices.size() != player.getMediaItemCount()) {
+                return;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error in playCurrentSong", e);
+            int queueIndex = windowIndices.get(playing);
+            if (queueIndex >= queue.size()) {
+                return;
+            }
+            currentIndex = queueIndex;
+            song = queue.get(currentIndex);
+
+            if (playing > 0) {
+                player.removeMediaItems(0, playing);
+                windowIndices.subList(0, playing).clear();
+            }
+            appendUpcomingToWindow();
+            maybePrefetchRecommendations(song);
         }
+        onSongStarted(song);
     }
 
     /**
@@ -678,6 +887,7 @@ public class MusicPlayerManager {
             synchronized (queue) {
                 queue.clear();
                 currentIndex = -1;
+                windowIndices.clear();
             }
             player.stop();
             player.clearMediaItems();
@@ -693,6 +903,7 @@ public class MusicPlayerManager {
         try {
             mainHandler.removeCallbacksAndMessages(null);
             player.release();
+            audioCacheManager.flushIndex();
         } catch (Exception e) {
             Log.e(TAG, "Error in release", e);
         }
@@ -704,6 +915,7 @@ public class MusicPlayerManager {
             isShuffleEnabled.postValue(isShuffleOn);
             if (isShuffleOn && !queue.isEmpty()) {
                 shuffleQueue(currentIndex);
+                refreshUpcomingWindow();
             }
         } catch (Exception e) {
             Log.e(TAG, "Error in toggleShuffle", e);
@@ -723,9 +935,12 @@ public class MusicPlayerManager {
                     repeatMode = Player.REPEAT_MODE_OFF;
                     break;
             }
-            // Do NOT set player.setRepeatMode() â€” ExoPlayer with a single media item
-            // treats REPEAT_MODE_ALL the same as ONE (loops the same track).
-            // We handle all repeat logic ourselves in onPlaybackStateChanged STATE_ENDED.
+            // Only REPEAT_MODE_ONE is handed to ExoPlayer, otherwise it would advance to the
+            // next item of the gapless window. REPEAT_MODE_ALL is NOT set on the player since
+            // it only holds a window of the queue; wrap-around is done by nextQueueIndex().
+            player.setRepeatMode(repeatMode == Player.REPEAT_MODE_ONE
+                    ? Player.REPEAT_MODE_ONE : Player.REPEAT_MODE_OFF);
+            refreshUpcomingWindow();
             repeatModeState.postValue(repeatMode);
         } catch (Exception e) {
             Log.e(TAG, "Error in toggleRepeatMode", e);
@@ -827,6 +1042,21 @@ public class MusicPlayerManager {
         return autoQueueEnabled;
     }
 
+    /**
+     * How long the current track must play before the next one is cached.
+     * Persisted so the choice survives restarts.
+     */
+    public void setCacheListenThresholdMs(long thresholdMs) {
+        this.cacheListenThresholdMs = Math.max(0, thresholdMs);
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(CACHE_LISTEN_THRESHOLD_KEY, cacheListenThresholdMs)
+                .apply();
+    }
+
+    public long getCacheListenThresholdMs() {
+        return cacheListenThresholdMs;
+    }
+
     /**
      * Public API for the Similar Songs button in PlayerActivity.
      * Immediately fetches recommendations for the given song and appends them to
@@ -883,6 +1113,9 @@ public class MusicPlayerManager {
                                             }
                                         }
                                         Log.d(TAG, "Auto-queue: added " + added + " songs to queue");
+                                        if (added > 0) {
+                                            extendUpcomingWindow();
+                                        }
 
                                         // Only auto-advance if player was idle (ended/waiting)
                                         if (added > 0 && player.getPlaybackState() == Player.STATE_ENDED
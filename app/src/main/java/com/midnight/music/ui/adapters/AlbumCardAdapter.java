@@ -7,24 +7,42 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.core.util.ObjectsCompat;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.midnight.music.R;
 import com.midnight.music.models.Album;
 
-import java.util.List;
-
-public class AlbumCardAdapter extends RecyclerView.Adapter<AlbumCardAdapter.AlbumViewHolder> {
-    private final List<Album> albums;
+/**
+ * Album/artist cards of the library tabs. Paged: items not loaded yet are null
+ * placeholders.
+ */
+public class AlbumCardAdapter extends PagingDataAdapter<Album, AlbumCardAdapter.AlbumViewHolder> {
     private final OnAlbumClickListener listener;
 
     public interface OnAlbumClickListener {
         void onAlbumClick(Album album);
     }
 
-    public AlbumCardAdapter(List<Album> albums, OnAlbumClickListener listener) {
-        this.albums = albums;
+    private static final DiffUtil.ItemCallback<Album> DIFF_CALLBACK = new DiffUtil.ItemCallback<Album>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Album oldItem, @NonNull Album newItem) {
+            return ObjectsCompat.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Album oldItem, @NonNull Album newItem) {
+            return ObjectsCompat.equals(oldItem.getTitle(), newItem.getTitle())
+                    && ObjectsCompat.equals(oldItem.getArtist(), newItem.getArtist())
+                    && ObjectsCompat.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+        }
+    };
+
+    public AlbumCardAdapter(OnAlbumClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
     }
 
@@ -38,13 +56,7 @@ public class AlbumCardAdapter extends RecyclerView.Adapter<AlbumCardAdapter.Albu
 
     @Override
     public void onBindViewHolder(@NonNull AlbumViewHolder holder, int position) {
-        Album album = albums.get(position);
-        holder.bind(album);
-    }
-
-    @Override
-    public int getItemCount() {
-        return albums.size();
+        holder.bind(getItem(position));
     }
 
     class AlbumViewHolder extends RecyclerView.ViewHolder {
@@ -59,14 +71,24 @@ public class AlbumCardAdapter extends RecyclerView.Adapter<AlbumCardAdapter.Albu
             albumArtist = itemView.findViewById(R.id.album_artist);
 
             itemView.setOnClickListener(v -> {
-                int position = getAdapterPosition();
+                int position = getBindingAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
-                    listener.onAlbumClick(albums.get(position));
+                    Album album = getItem(position);
+                    if (album != null) {
+                        listener.onAlbumClick(album);
+                    }
                 }
             });
         }
 
         void bind(Album album) {
+            if (album == null) {
+                // Placeholder until the page is loaded
+                albumTitle.setText("");
+                albumArtist.setText("");
+                albumImage.setImageResource(R.drawable.placeholder_album);
+                return;
+            }
             albumTitle.setText(album.getTitle());
             albumArtist.setText(album.getArtist());
 
@@ -76,6 +98,9 @@ public class AlbumCardAdapter extends RecyclerView.Adapter<AlbumCardAdapter.Albu
                         .load(imageUrl.replace("http://", "https://"))
                         .placeholder(R.drawable.placeholder_song)
                         .into(albumImage);
+            } else {
+                Glide.with(itemView.getContext()).clear(albumImage);
+                albumImage.setImageResource(R.drawable.placeholder_album);
             }
         }
     }
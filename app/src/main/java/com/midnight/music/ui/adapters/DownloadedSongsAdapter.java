@@ -8,8 +8,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -18,9 +18,10 @@ import com.midnight.music.data.model.Song;
 
 /**
  * Adapter for displaying downloaded songs in a list.
- * Uses ListAdapter with DiffUtil for efficient updates.
+ * Paged: only the songs around the visible range are in memory; items not
+ * loaded yet are null placeholders.
  */
-public class DownloadedSongsAdapter extends ListAdapter<Song, DownloadedSongsAdapter.ViewHolder> {
+public class DownloadedSongsAdapter extends PagingDataAdapter<Song, DownloadedSongsAdapter.ViewHolder> {
 
     private final OnItemClickListener listener;
 
@@ -78,27 +79,34 @@ public class DownloadedSongsAdapter extends ListAdapter<Song, DownloadedSongsAda
 
             itemView.setOnClickListener(v -> {
                 int pos = getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
+                if (pos != RecyclerView.NO_POSITION && getItem(pos) != null) {
                     listener.onSongClick(getItem(pos), pos);
                 }
             });
 
             btnDelete.setOnClickListener(v -> {
                 int pos = getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
+                if (pos != RecyclerView.NO_POSITION && getItem(pos) != null) {
                     listener.onDeleteClick(getItem(pos), pos);
                 }
             });
 
             btnExport.setOnClickListener(v -> {
                 int pos = getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
+                if (pos != RecyclerView.NO_POSITION && getItem(pos) != null) {
                     listener.onExportClick(getItem(pos), pos);
                 }
             });
         }
 
         void bind(Song song) {
+            if (song == null) {
+                // Placeholder until the page is loaded
+                songTitle.setText("");
+                songArtist.setText("");
+                songImage.setImageResource(R.drawable.placeholder_song);
+                return;
+            }
             songTitle.setText(song.getSong());
             songArtist.setText(song.getSingers());
 
@@ -19,13 +19,13 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 import com.midnight.music.R;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.google.android.material.card.MaterialCardView;
 
 import java.util.List;
 import java.util.Random;
 
-public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdapter.PlaylistViewHolder> {
+public class PlaylistAdapter extends ListAdapter<PlaylistSummary, PlaylistAdapter.PlaylistViewHolder> {
 
     private final PlaylistListener listener;
     private static final int[] PLACEHOLDER_COLORS = {
@@ -34,11 +34,11 @@ public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdap
     };
 
     public interface PlaylistListener {
-        void onPlaylistClick(PlaylistWithSongs playlist);
+        void onPlaylistClick(PlaylistSummary playlist);
 
-        void onPlaylistRename(PlaylistWithSongs playlist);
+        void onPlaylistRename(PlaylistSummary playlist);
 
-        void onPlaylistDelete(PlaylistWithSongs playlist);
+        void onPlaylistDelete(PlaylistSummary playlist);
     }
 
     public PlaylistAdapter(PlaylistListener listener) {
@@ -86,25 +86,28 @@ public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdap
             menuButton.setOnClickListener(v -> showPopupMenu(v, getBindingAdapterPosition()));
         }
 
-        void bind(PlaylistWithSongs playlistWithSongs) {
-            if (playlistWithSongs == null)
+        void bind(PlaylistSummary playlist) {
+            if (playlist == null)
                 return;
 
-            playlistTitle.setText(playlistWithSongs.playlist.getName());
+            playlistTitle.setText(playlist.name);
 
             // Format: "12 songs" or "12 songs â€¢ 45m"
-            String countText = playlistWithSongs.getFormattedSongCount();
+            String countText = playlist.getFormattedSongCount();
+            if (playlist.totalDuration > 0) {
+                countText += " \u2022 " + playlist.getFormattedDuration();
+            }
             playlistSongs.setText(countText);
 
             // Hide menu for "Liked Songs" just in case it slips through
-            boolean isLikedPlaylist = playlistWithSongs.playlist.getName().equals(itemView.getContext().getString(R.string.liked_songs));
+            boolean isLikedPlaylist = playlist.name.equals(itemView.getContext().getString(R.string.liked_songs));
             if (isLikedPlaylist) {
                 menuButton.setVisibility(View.INVISIBLE);
             } else {
                 menuButton.setVisibility(View.VISIBLE);
             }
 
-            List<String> imageUrls = playlistWithSongs.getImageUrls(4);
+            List<String> imageUrls = playlist.getImageUrls(4);
             if (imageUrls != null && !imageUrls.isEmpty()) {
                 playlistImage.setVisibility(View.VISIBLE);
                 playlistInitials.setVisibility(View.GONE);
@@ -119,7 +122,7 @@ public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdap
                 playlistImage.setVisibility(View.INVISIBLE);
                 playlistInitials.setVisibility(View.VISIBLE);
 
-                String name = playlistWithSongs.playlist.getName();
+                String name = playlist.name;
                 String initials = getInitials(name);
                 playlistInitials.setText(initials);
 
@@ -134,13 +137,13 @@ public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdap
                 return;
 
             Context context = view.getContext();
-            PlaylistWithSongs playlist = getItem(position);
+            PlaylistSummary playlist = getItem(position);
 
             PopupMenu popup = new PopupMenu(context, view);
             popup.inflate(R.menu.menu_playlist_options);
 
             // Don't allow deleting Liked Songs playlist
-            if (playlist.playlist.getName().equals(context.getString(R.string.liked_songs))) {
+            if (playlist.name.equals(context.getString(R.string.liked_songs))) {
                 popup.getMenu().findItem(R.id.action_delete_playlist).setVisible(false);
                 popup.getMenu().findItem(R.id.action_rename_playlist).setVisible(false);
             }
@@ -178,16 +181,17 @@ public class PlaylistAdapter extends ListAdapter<PlaylistWithSongs, PlaylistAdap
         }
     }
 
-    private static class PlaylistDiffCallback extends DiffUtil.ItemCallback<PlaylistWithSongs> {
+    private static class PlaylistDiffCallback extends DiffUtil.ItemCallback<PlaylistSummary> {
         @Override
-        public boolean areItemsTheSame(@NonNull PlaylistWithSongs oldItem, @NonNull PlaylistWithSongs newItem) {
-            return oldItem.playlist.getId() == newItem.playlist.getId();
+        public boolean areItemsTheSame(@NonNull PlaylistSummary oldItem, @NonNull PlaylistSummary newItem) {
+            return oldItem.id == newItem.id;
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull PlaylistWithSongs oldItem, @NonNull PlaylistWithSongs newItem) {
-            return oldItem.playlist.getName().equals(newItem.playlist.getName()) &&
-                    oldItem.getSongCount() == newItem.getSongCount();
+        public boolean areContentsTheSame(@NonNull PlaylistSummary oldItem, @NonNull PlaylistSummary newItem) {
+            return oldItem.name.equals(newItem.name) &&
+                    oldItem.getSongCount() == newItem.getSongCount() &&
+                    java.util.Objects.equals(oldItem.coverUrls, newItem.coverUrls);
         }
     }
 }
@@ -14,7 +14,7 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.midnight.music.R;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,40 +22,33 @@ import java.util.Objects;
 
 public class PlaylistTileAdapter extends RecyclerView.Adapter<PlaylistTileAdapter.PlaylistViewHolder> {
     
-    private List<PlaylistWithSongs> playlists;
+    private List<PlaylistSummary> playlists;
     private final OnPlaylistClickListener listener;
     
     public interface OnPlaylistClickListener {
-        void onPlaylistClick(PlaylistWithSongs playlist);
+        void onPlaylistClick(PlaylistSummary playlist);
     }
     
-    public PlaylistTileAdapter(List<PlaylistWithSongs> playlists, OnPlaylistClickListener listener) {
+    public PlaylistTileAdapter(List<PlaylistSummary> playlists, OnPlaylistClickListener listener) {
         this.playlists = new ArrayList<>(playlists);
         this.listener = listener;
     }
     
-    public void updateData(List<PlaylistWithSongs> newPlaylists) {
-        List<PlaylistWithSongs> oldPlaylists = this.playlists;
+    public void updateData(List<PlaylistSummary> newPlaylists) {
+        List<PlaylistSummary> oldPlaylists = this.playlists;
         this.playlists = new ArrayList<>(newPlaylists);
         DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
             @Override public int getOldListSize() { return oldPlaylists.size(); }
             @Override public int getNewListSize() { return newPlaylists.size(); }
             @Override public boolean areItemsTheSame(int oldPos, int newPos) {
-                return oldPlaylists.get(oldPos).playlist.getId() == newPlaylists.get(newPos).playlist.getId();
+                return oldPlaylists.get(oldPos).id == newPlaylists.get(newPos).id;
             }
             @Override public boolean areContentsTheSame(int oldPos, int newPos) {
-                PlaylistWithSongs o = oldPlaylists.get(oldPos), n = newPlaylists.get(newPos);
-                boolean sameName = String.valueOf(o.playlist.getName()).equals(String.valueOf(n.playlist.getName()));
-                boolean sameSize = o.songs.size() == n.songs.size();
-                boolean sameCover;
-                if (o.songs.isEmpty() && n.songs.isEmpty()) {
-                    sameCover = true;
-                } else {
-                    String oUrl = o.songs.isEmpty() ? null : o.songs.get(0).getImageUrl();
-                    String nUrl = n.songs.isEmpty() ? null : n.songs.get(0).getImageUrl();
-                    sameCover = Objects.equals(oUrl, nUrl);
-                }
-                return o.playlist.getId() == n.playlist.getId() && sameName && sameSize && sameCover;
+                PlaylistSummary o = oldPlaylists.get(oldPos), n = newPlaylists.get(newPos);
+                boolean sameName = String.valueOf(o.name).equals(String.valueOf(n.name));
+                boolean sameSize = o.songCount == n.songCount;
+                boolean sameCover = Objects.equals(o.getFirstImageUrl(), n.getFirstImageUrl());
+                return o.id == n.id && sameName && sameSize && sameCover;
             }
         });
         result.dispatchUpdatesTo(this);
@@ -71,7 +64,7 @@ public class PlaylistTileAdapter extends RecyclerView.Adapter<PlaylistTileAdapte
     
     @Override
     public void onBindViewHolder(@NonNull PlaylistViewHolder holder, int position) {
-        PlaylistWithSongs playlistWithSongs = playlists.get(position);
+        PlaylistSummary playlistWithSongs = playlists.get(position);
         holder.bind(playlistWithSongs);
     }
     
@@ -99,28 +92,24 @@ public class PlaylistTileAdapter extends RecyclerView.Adapter<PlaylistTileAdapte
             });
         }
         
-        public void bind(PlaylistWithSongs playlistWithSongs) {
-            playlistName.setText(playlistWithSongs.playlist.getName());
+        public void bind(PlaylistSummary playlist) {
+            playlistName.setText(playlist.name);
             
             // Set playlist details (number of songs)
-            String songCount = playlistWithSongs.songs.size() + " songs";
+            String songCount = playlist.songCount + " songs";
             playlistDetails.setText(songCount);
             
             // Load playlist image with optimized caching
-            if (playlistWithSongs.songs != null && !playlistWithSongs.songs.isEmpty()) {
-                // Use the first song's image as playlist cover
-                String imageUrl = playlistWithSongs.songs.get(0).getImageUrl();
-                if (imageUrl != null && !imageUrl.isEmpty()) {
-                    Glide.with(itemView.getContext())
-                            .load(imageUrl)
-                            .diskCacheStrategy(DiskCacheStrategy.ALL)
-                            .transition(DrawableTransitionOptions.withCrossFade(200))
-                            .thumbnail(0.25f)
-                            .placeholder(R.drawable.placeholder_art)
-                            .into(playlistImage);
-                } else {
-                    playlistImage.setImageResource(R.drawable.placeholder_art);
-                }
+            // Use the first song's image as playlist cover
+            String imageUrl = playlist.getFirstImageUrl();
+            if (imageUrl != null && !imageUrl.isEmpty()) {
+                Glide.with(itemView.getContext())
+                        .load(imageUrl)
+                        .diskCacheStrategy(DiskCacheStrategy.ALL)
+                        .transition(DrawableTransitionOptions.withCrossFade(200))
+                        .thumbnail(0.25f)
+                        .placeholder(R.drawable.placeholder_art)
+                        .into(playlistImage);
             } else {
                 playlistImage.setImageResource(R.drawable.placeholder_art);
             }
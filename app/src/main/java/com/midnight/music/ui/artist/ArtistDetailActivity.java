@@ -16,6 +16,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.midnight.music.R;
 import com.midnight.music.data.model.Artist;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.network.LastFmService;
 import com.midnight.music.data.network.SaavnApiService;
 import com.midnight.music.data.network.SaavnSearchResponse;
@@ -34,8 +35,6 @@ import java.util.concurrent.TimeUnit;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class ArtistDetailActivity extends AppCompatActivity {
 
@@ -86,18 +85,10 @@ public class ArtistDetailActivity extends AppCompatActivity {
 
     private void setupApi() {
         // Saavn API
-        Retrofit saavnRetrofit = new Retrofit.Builder()
-                .baseUrl(SaavnApiService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        saavnApi = saavnRetrofit.create(SaavnApiService.class);
+        saavnApi = ApiClients.create(SaavnApiService.BASE_URL, SaavnApiService.class);
         
         // Last.fm API
-        Retrofit lastFmRetrofit = new Retrofit.Builder()
-                .baseUrl(LastFmService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        lastFmApi = lastFmRetrofit.create(LastFmService.class);
+        lastFmApi = ApiClients.create(LastFmService.BASE_URL, LastFmService.class);
     }
 
     private void setupToolbar() {
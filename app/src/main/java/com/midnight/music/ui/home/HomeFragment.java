@@ -18,7 +18,7 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 
 import com.midnight.music.R;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.databinding.FragmentHomeBinding;
 import com.midnight.music.player.MusicPlayerManager;
@@ -26,6 +26,7 @@ import com.midnight.music.ui.adapters.PlaylistTileAdapter;
 import com.midnight.music.ui.adapters.RecentCompactAdapter;
 import com.midnight.music.ui.adapters.SongCardAdapter;
 import com.midnight.music.ui.player.PlayerActivity;
+import com.midnight.music.utils.AudioPrefetcher;
 import com.midnight.music.utils.ThemeManager;
 
 import android.graphics.Color;
@@ -39,6 +40,10 @@ public class HomeFragment extends Fragment implements
         SongCardAdapter.OnSongClickListener,
         RecentCompactAdapter.OnSongClickListener {
 
+    private static final String PREFETCH_RECENT = "home_recent";
+    private static final String PREFETCH_RECOMMENDED = "home_recommended";
+    private static final String PREFETCH_TRENDING = "home_trending";
+
     private FragmentHomeBinding binding;
     private HomeViewModel viewModel;
     private PlaylistTileAdapter recentPlaylistsAdapter;
@@ -132,6 +137,12 @@ public class HomeFragment extends Fragment implements
         binding.newReleasesRecycler.setItemViewCacheSize(10);
         trendingAdapter = new SongCardAdapter(new ArrayList<>(), this);
         binding.newReleasesRecycler.setAdapter(trendingAdapter);
+
+        // Prefetch the start of every visible song so a tap starts from disk
+        AudioPrefetcher prefetcher = AudioPrefetcher.getInstance(requireContext());
+        prefetcher.attach(binding.recentlyPlayedRecycler, PREFETCH_RECENT, recentlyPlayedAdapter::getSongAt);
+        prefetcher.attach(binding.recommendedRecycler, PREFETCH_RECOMMENDED, recommendedAdapter::getSongAt);
+        prefetcher.attach(binding.newReleasesRecycler, PREFETCH_TRENDING, trendingAdapter::getSongAt);
     }
 
     private void observeData() {
@@ -139,10 +150,7 @@ public class HomeFragment extends Fragment implements
         viewModel.getPlaylists().observe(getViewLifecycleOwner(), playlists -> {
             setVisible(binding.shimmerPlaylists, false);
             if (playlists != null && !playlists.isEmpty()) {
-                List<PlaylistWithSongs> limited = playlists.size() > 4
-                        ? playlists.subList(0, 4)
-                        : playlists;
-                recentPlaylistsAdapter.updateData(limited);
+                recentPlaylistsAdapter.updateData(playlists);
                 setVisible(binding.recentPlaylistsTitle, true);
                 setVisible(binding.recentPlaylistsSubtitle, true);
                 setVisible(binding.recentPlaylistsRecycler, true);
@@ -221,9 +229,9 @@ public class HomeFragment extends Fragment implements
     // Handled via the same method name
 
     @Override
-    public void onPlaylistClick(PlaylistWithSongs playlist) {
+    public void onPlaylistClick(PlaylistSummary playlist) {
         Toast.makeText(requireContext(),
-                "Opening: " + playlist.playlist.getName(),
+                "Opening: " + playlist.name,
                 Toast.LENGTH_SHORT).show();
     }
 
@@ -303,6 +311,10 @@ public class HomeFragment extends Fragment implements
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        AudioPrefetcher prefetcher = AudioPrefetcher.getInstance(requireContext());
+        prefetcher.clear(PREFETCH_RECENT);
+        prefetcher.clear(PREFETCH_RECOMMENDED);
+        prefetcher.clear(PREFETCH_TRENDING);
         binding = null;
     }
 }
@@ -8,7 +8,7 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.data.repository.MusicRepository;
 import com.midnight.music.data.repository.RecommendationManager;
@@ -30,7 +30,7 @@ public class HomeViewModel extends AndroidViewModel {
 
     private final MusicRepository repository;
     private final MutableLiveData<String> greeting = new MutableLiveData<>();
-    private final LiveData<List<PlaylistWithSongs>> playlists;
+    private final LiveData<List<PlaylistSummary>> playlists;
     private final LiveData<List<Song>> recentlyPlayed;
 
     // Recommendation data
@@ -42,14 +42,14 @@ public class HomeViewModel extends AndroidViewModel {
         repository = MusicRepository.getInstance(application);
         repository.setLastFmApiKey(LASTFM_API_KEY);
 
-        playlists = repository.getAllPlaylists();
+        playlists = repository.getRecentPlaylistSummaries(4);
         recentlyPlayed = repository.getRecentlyPlayedSongs();
         updateGreeting();
         loadTrending();
     }
 
     public LiveData<String> getGreeting() { return greeting; }
-    public LiveData<List<PlaylistWithSongs>> getPlaylists() { return playlists; }
+    public LiveData<List<PlaylistSummary>> getPlaylists() { return playlists; }
     public LiveData<List<Song>> getRecentlyPlayedSongs() { return recentlyPlayed; }
     public LiveData<List<Song>> getRecommendations() { return recommendations; }
     public LiveData<List<Song>> getTrending() { return trending; }
@@ -156,6 +156,6 @@ public class HomeViewModel extends AndroidViewModel {
     }
 
     public void saveSongToHistory(Song song) {
-        repository.saveSong(song);
+        repository.recordPlay(song);
     }
 }
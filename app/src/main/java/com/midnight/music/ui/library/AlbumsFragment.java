@@ -9,17 +9,29 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.midnight.music.R;
+import com.midnight.music.data.model.AlbumSummary;
+import com.midnight.music.data.repository.MusicRepository;
 import com.midnight.music.models.Album;
 import com.midnight.music.ui.adapters.AlbumCardAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+/**
+ * Albums of the library, grouped and paged in SQL.
+ */
 public class AlbumsFragment extends Fragment implements AlbumCardAdapter.OnAlbumClickListener {
+    private static final int SPAN_COUNT = 2;
+    private final Executor mapExecutor = Executors.newSingleThreadExecutor();
     private RecyclerView recyclerView;
+    private AlbumCardAdapter adapter;
 
     @Nullable
     @Override
@@ -34,26 +46,22 @@ public class AlbumsFragment extends Fragment implements AlbumCardAdapter.OnAlbum
         super.onViewCreated(view, savedInstanceState);
         recyclerView = view.findViewById(R.id.recycler_view);
         setupRecyclerView();
+        observeAlbums();
     }
 
     private void setupRecyclerView() {
-        List<Album> albums = getAlbums();
-        AlbumCardAdapter adapter = new AlbumCardAdapter(albums, this);
+        adapter = new AlbumCardAdapter(this);
+        recyclerView.setLayoutManager(new GridLayoutManager(requireContext(), SPAN_COUNT));
         recyclerView.setAdapter(adapter);
     }
 
-    private List<Album> getAlbums() {
-        List<Album> albums = new ArrayList<>();
-        
-        // Add sample albums
-        albums.add(new Album("1", "Random Access Memories", "Daft Punk", null, "album"));
-        albums.add(new Album("2", "Discovery", "Daft Punk", null, "album"));
-        albums.add(new Album("3", "Homework", "Daft Punk", null, "album"));
-        albums.add(new Album("4", "Human After All", "Daft Punk", null, "album"));
-        albums.add(new Album("5", "TRON: Legacy", "Daft Punk", null, "album"));
-        albums.add(new Album("6", "Alive 2007", "Daft Punk", null, "album"));
-        
-        return albums;
+    private void observeAlbums() {
+        PagingLiveData.cachedIn(
+                Transformations.map(MusicRepository.getInstance(requireContext()).getAlbumsPaged(),
+                        pagingData -> PagingDataTransforms.map(pagingData, mapExecutor, AlbumSummary::toAlbum)),
+                getViewLifecycleOwner().getLifecycle())
+                .observe(getViewLifecycleOwner(), pagingData ->
+                        adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
     }
 
     @Override
@@ -63,4 +71,4 @@ public class AlbumsFragment extends Fragment implements AlbumCardAdapter.OnAlbum
                       "Selected album: " + album.getTitle(), 
                       Toast.LENGTH_SHORT).show();
     }
-} 
+}
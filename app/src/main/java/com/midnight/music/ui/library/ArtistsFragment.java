@@ -9,17 +9,29 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.midnight.music.R;
+import com.midnight.music.data.model.ArtistSummary;
+import com.midnight.music.data.repository.MusicRepository;
 import com.midnight.music.models.Album;
 import com.midnight.music.ui.adapters.AlbumCardAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+/**
+ * Artists of the library, grouped and paged in SQL.
+ */
 public class ArtistsFragment extends Fragment implements AlbumCardAdapter.OnAlbumClickListener {
+    private static final int SPAN_COUNT = 2;
+    private final Executor mapExecutor = Executors.newSingleThreadExecutor();
     private RecyclerView recyclerView;
+    private AlbumCardAdapter adapter;
 
     @Nullable
     @Override
@@ -34,26 +46,22 @@ public class ArtistsFragment extends Fragment implements AlbumCardAdapter.OnAlbu
         super.onViewCreated(view, savedInstanceState);
         recyclerView = view.findViewById(R.id.recycler_view);
         setupRecyclerView();
+        observeArtists();
     }
 
     private void setupRecyclerView() {
-        List<Album> artists = getArtists();
-        AlbumCardAdapter adapter = new AlbumCardAdapter(artists, this);
+        adapter = new AlbumCardAdapter(this);
+        recyclerView.setLayoutManager(new GridLayoutManager(requireContext(), SPAN_COUNT));
         recyclerView.setAdapter(adapter);
     }
 
-    private List<Album> getArtists() {
-        List<Album> artists = new ArrayList<>();
-        
-        // Add sample artists
-        artists.add(new Album("1", "Daft Punk", "Electronic â€¢ French duo", null, "artist"));
-        artists.add(new Album("2", "The Weeknd", "R&B â€¢ Pop", null, "artist"));
-        artists.add(new Album("3", "Tame Impala", "Psychedelic Rock", null, "artist"));
-        artists.add(new Album("4", "Arctic Monkeys", "Rock â€¢ Indie", null, "artist"));
-        artists.add(new Album("5", "Kendrick Lamar", "Hip-Hop â€¢ Rap", null, "artist"));
-        artists.add(new Album("6", "Taylor Swift", "Pop â€¢ Country", null, "artist"));
-        
-        return artists;
+    private void observeArtists() {
+        PagingLiveData.cachedIn(
+                Transformations.map(MusicRepository.getInstance(requireContext()).getArtistsPaged(),
+                        pagingData -> PagingDataTransforms.map(pagingData, mapExecutor, ArtistSummary::toAlbum)),
+                getViewLifecycleOwner().getLifecycle())
+                .observe(getViewLifecycleOwner(), pagingData ->
+                        adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
     }
 
     @Override
@@ -63,4 +71,4 @@ public class ArtistsFragment extends Fragment implements AlbumCardAdapter.OnAlbu
                       "Selected artist: " + album.getTitle(), 
                       Toast.LENGTH_SHORT).show();
     }
-} 
+}
@@ -11,6 +11,8 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
+import androidx.paging.LoadState;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.midnight.music.R;
@@ -21,14 +23,14 @@ import com.midnight.music.player.MusicPlayerManager;
 import com.midnight.music.ui.adapters.DownloadedSongsAdapter;
 import com.midnight.music.utils.ThemeManager;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import kotlin.Unit;
+
 public class DownloadsFragment extends Fragment implements DownloadedSongsAdapter.OnItemClickListener {
     private FragmentDownloadsBinding binding;
     private DownloadedSongsAdapter adapter;
     private MusicRepository repository;
-    private List<Song> downloadedSongs = new ArrayList<>();
 
     @Nullable
     @Override
@@ -69,6 +71,14 @@ public class DownloadsFragment extends Fragment implements DownloadedSongsAdapte
         adapter = new DownloadedSongsAdapter(this);
         binding.downloadsRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.downloadsRecyclerView.setAdapter(adapter);
+
+        // Empty state once the first page is in
+        adapter.addLoadStateListener(states -> {
+            if (binding != null && states.getRefresh() instanceof LoadState.NotLoading) {
+                showEmptyState(adapter.getItemCount() == 0);
+            }
+            return Unit.INSTANCE;
+        });
     }
 
     private void setupEmptyState() {
@@ -80,18 +90,42 @@ public class DownloadsFragment extends Fragment implements DownloadedSongsAdapte
     }
 
     private void observeDownloads() {
-        repository.getDownloadedSongs().observe(getViewLifecycleOwner(), songs -> {
-            downloadedSongs = songs != null ? songs : new ArrayList<>();
-            adapter.submitList(new ArrayList<>(downloadedSongs));
-            showEmptyState(downloadedSongs.isEmpty());
-        });
+        PagingLiveData.cachedIn(repository.getDownloadedSongsPaged(), getViewLifecycleOwner().getLifecycle())
+                .observe(getViewLifecycleOwner(), pagingData ->
+                        adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
     }
 
     @Override
     public void onSongClick(Song song, int position) {
-        // Play the downloaded song (and set all downloads as queue)
-        MusicPlayerManager playerManager = MusicPlayerManager.getInstance(requireContext());
-        playerManager.playQueue(downloadedSongs, position);
+        // Play the downloaded song (and set all downloads as queue).
+        // Only a page is in memory, so the full queue is loaded off the main thread.
+        repository.loadDownloadedSongs(new MusicRepository.SearchCallback() {
+            @Override
+            public void onSuccess(List<Song> songs) {
+                int startIndex = indexOf(songs, song, position);
+                android.app.Activity activity = getActivity();
+                if (activity == null) return;
+                activity.runOnUiThread(() ->
+                        MusicPlayerManager.getInstance(activity).playQueue(songs, startIndex));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Nothing to play
+            }
+        });
+    }
+
+    private static int indexOf(List<Song> songs, Song song, int hint) {
+        if (hint >= 0 && hint < songs.size() && songs.get(hint).getId().equals(song.getId())) {
+            return hint;
+        }
+        for (int i = 0; i < songs.size(); i++) {
+            if (songs.get(i).getId().equals(song.getId())) {
+                return i;
+            }
+        }
+        return 0;
     }
 
     @Override
@@ -121,12 +155,15 @@ public class DownloadsFragment extends Fragment implements DownloadedSongsAdapte
     }
 
     private void exportAllSongs() {
-        if (downloadedSongs == null || downloadedSongs.isEmpty()) return;
+        if (adapter.getItemCount() == 0) return;
 
         Toast.makeText(requireContext(), "Exporting all songs...", Toast.LENGTH_SHORT).show();
         
+        android.content.Context appContext = requireContext().getApplicationContext();
         new Thread(() -> {
             int successCount = 0;
+            List<Song> downloadedSongs = com.midnight.music.data.db.AppDatabase.getInstance(appContext)
+                    .songDao().getDownloadedSongsSync();
             for (Song song : downloadedSongs) {
                 if (performExport(song)) {
                     successCount++;
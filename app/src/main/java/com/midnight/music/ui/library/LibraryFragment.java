@@ -51,6 +51,12 @@ public class LibraryFragment extends Fragment {
                         case 1:
                             tab.setText("Downloads");
                             break;
+                        case 2:
+                            tab.setText("Albums");
+                            break;
+                        case 3:
+                            tab.setText("Artists");
+                            break;
                     }
                 }).attach();
 
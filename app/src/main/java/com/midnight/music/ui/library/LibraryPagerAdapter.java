@@ -18,6 +18,10 @@ public class LibraryPagerAdapter extends FragmentStateAdapter {
                 return new PlaylistsFragment();
             case 1:
                 return new DownloadsFragment();
+            case 2:
+                return new AlbumsFragment();
+            case 3:
+                return new ArtistsFragment();
             default:
                 throw new IllegalStateException("Invalid position " + position);
         }
@@ -25,6 +29,6 @@ public class LibraryPagerAdapter extends FragmentStateAdapter {
 
     @Override
     public int getItemCount() {
-        return 2; // Only Playlists and Downloads
+        return 4;
     }
 } 
@@ -7,6 +7,7 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 
 import com.midnight.music.data.model.Playlist;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.PlaylistWithSongs;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.data.repository.MusicRepository;
@@ -21,8 +22,16 @@ public class PlaylistViewModel extends AndroidViewModel {
         repository = MusicRepository.getInstance(application);
     }
 
-    public LiveData<List<PlaylistWithSongs>> getAllPlaylists() {
-        return repository.getAllPlaylists();
+    public LiveData<List<PlaylistSummary>> getPlaylistSummaries() {
+        return repository.getPlaylistSummaries();
+    }
+
+    public LiveData<PlaylistSummary> getLikedPlaylistSummary() {
+        return repository.getLikedPlaylistSummary();
+    }
+
+    public void loadPlaylistSongs(long playlistId, MusicRepository.SearchCallback callback) {
+        repository.loadPlaylistSongs(playlistId, callback);
     }
 
     public LiveData<PlaylistWithSongs> getPlaylistWithSongs(long playlistId) {
@@ -21,7 +21,7 @@ import com.midnight.music.R;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.model.Playlist;
 import com.midnight.music.data.model.Song;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.databinding.FragmentPlaylistsBinding;
 import com.midnight.music.ui.adapters.PlaylistAdapter;
 import com.midnight.music.ui.playlist.PlaylistDetailActivity;
@@ -32,7 +32,6 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 
 public class PlaylistsFragment extends Fragment implements PlaylistAdapter.PlaylistListener {
@@ -100,46 +99,30 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         try {
             viewModel = new ViewModelProvider(this).get(PlaylistViewModel.class);
 
-            // Observe all playlists
-            viewModel.getAllPlaylists().observe(getViewLifecycleOwner(), playlists -> {
-                // Filter out "Liked Songs" since it's shown in the header
-                List<PlaylistWithSongs> filteredList = new ArrayList<>();
-                PlaylistWithSongs likedSongsPlaylist = null;
-
-                for (PlaylistWithSongs p : playlists) {
-                    if (p.playlist.getName().equals(getString(R.string.liked_songs))) {
-                        likedSongsPlaylist = p;
-                    } else {
-                        filteredList.add(p);
-                    }
-                }
-
-                adapter.submitList(filteredList);
-                binding.playlistCount.setText(filteredList.size() + " playlists");
-
-                // Update Liked Songs card click listener if playlist exists
-                if (likedSongsPlaylist != null) {
-                    final long likedId = likedSongsPlaylist.playlist.getId();
-                    final List<Song> likedSongs = likedSongsPlaylist.songs;
-                    
-                    binding.likedSongsCard.setOnClickListener(v -> openPlaylist(likedId));
-                    binding.likedPlayBtn.setOnClickListener(v -> {
-                        if (likedSongs != null && !likedSongs.isEmpty()) {
-                            com.midnight.music.player.MusicPlayerManager.getInstance(requireContext()).playQueue(likedSongs, 0);
-                        } else {
-                            Toast.makeText(requireContext(), "No liked songs to play", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                }
+            // Observe playlist summaries ("Liked Songs" is excluded in SQL, it's shown in the header)
+            viewModel.getPlaylistSummaries().observe(getViewLifecycleOwner(), playlists -> {
+                adapter.submitList(playlists);
+                binding.playlistCount.setText(playlists.size() + " playlists");
 
                 // Update empty state
-                if (filteredList.isEmpty()) {
+                if (playlists.isEmpty()) {
                     binding.emptyView.setVisibility(View.VISIBLE);
                 } else {
                     binding.emptyView.setVisibility(View.GONE);
                 }
             });
 
+            // Update Liked Songs card click listener if playlist exists
+            viewModel.getLikedPlaylistSummary().observe(getViewLifecycleOwner(), likedSongsPlaylist -> {
+                if (likedSongsPlaylist == null) {
+                    return;
+                }
+                final long likedId = likedSongsPlaylist.id;
+
+                binding.likedSongsCard.setOnClickListener(v -> openPlaylist(likedId));
+                binding.likedPlayBtn.setOnClickListener(v -> playLikedSongs(likedId));
+            });
+
             // Observe liked songs count separately for the badge/text
             viewModel.getLikedSongsCount().observe(getViewLifecycleOwner(), count -> {
                 if (count != null) {
@@ -163,7 +146,7 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
             // Try again with the cleared database
             try {
                 viewModel = new ViewModelProvider(this).get(PlaylistViewModel.class);
-                viewModel.getAllPlaylists().observe(getViewLifecycleOwner(), playlists -> {
+                viewModel.getPlaylistSummaries().observe(getViewLifecycleOwner(), playlists -> {
                     // Reuse functionality by re-triggering observation
                     // Actual refresh logic duplicates some code but safe for recovery
                     adapter.submitList(playlists);
@@ -176,6 +159,28 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         }
     }
 
+    private void playLikedSongs(long likedId) {
+        // Songs are only loaded when actually played, the list shows summaries
+        viewModel.loadPlaylistSongs(likedId, new com.midnight.music.data.repository.MusicRepository.SearchCallback() {
+            @Override
+            public void onSuccess(List<Song> likedSongs) {
+                new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
+                    if (!isAdded()) return;
+                    if (!likedSongs.isEmpty()) {
+                        com.midnight.music.player.MusicPlayerManager.getInstance(requireContext()).playQueue(likedSongs, 0);
+                    } else {
+                        Toast.makeText(requireContext(), "No liked songs to play", Toast.LENGTH_SHORT).show();
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Log error but don't crash
+            }
+        });
+    }
+
     private void openPlaylist(long playlistId) {
         Intent intent = new Intent(requireContext(), PlaylistDetailActivity.class);
         intent.putExtra("playlist_id", playlistId);
@@ -327,7 +332,7 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         dialog.show();
     }
 
-    private void showRenamePlaylistDialog(PlaylistWithSongs playlistWithSongs) {
+    private void showRenamePlaylistDialog(PlaylistSummary playlist) {
         View dialogView = LayoutInflater.from(getContext())
                 .inflate(R.layout.dialog_create_playlist, null);
         EditText editText = dialogView.findViewById(R.id.edit_playlist_name);
@@ -335,7 +340,7 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         View btnCancel = dialogView.findViewById(R.id.btn_cancel);
 
         // Set update text
-        editText.setText(playlistWithSongs.playlist.getName());
+        editText.setText(playlist.name);
         editText.setSelection(editText.getText().length());
 
         // Update button text logic could go here if we had access to button text,
@@ -356,7 +361,7 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         btnCreate.setOnClickListener(v -> {
             String name = editText.getText().toString().trim();
             if (!name.isEmpty()) {
-                renamePlaylist(playlistWithSongs, name);
+                renamePlaylist(playlist, name);
                 dialog.dismiss();
             }
         });
@@ -366,12 +371,12 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         dialog.show();
     }
 
-    private void showDeletePlaylistDialog(PlaylistWithSongs playlistWithSongs) {
+    private void showDeletePlaylistDialog(PlaylistSummary playlist) {
         new AlertDialog.Builder(requireContext(), R.style.PlaylistDialogStyle)
                 .setTitle(R.string.delete_playlist)
-                .setMessage(getString(R.string.confirm_delete_playlist, playlistWithSongs.playlist.getName()))
+                .setMessage(getString(R.string.confirm_delete_playlist, playlist.name))
                 .setPositiveButton(R.string.delete, (dialog, which) -> {
-                    deletePlaylist(playlistWithSongs);
+                    deletePlaylist(playlist);
                 })
                 .setNegativeButton(R.string.cancel, null)
                 .show();
@@ -382,30 +387,30 @@ public class PlaylistsFragment extends Fragment implements PlaylistAdapter.Playl
         Toast.makeText(requireContext(), R.string.playlist_created, Toast.LENGTH_SHORT).show();
     }
 
-    private void renamePlaylist(PlaylistWithSongs playlistWithSongs, String newName) {
-        viewModel.renamePlaylist(playlistWithSongs.playlist, newName);
+    private void renamePlaylist(PlaylistSummary playlist, String newName) {
+        viewModel.renamePlaylist(playlist.toPlaylist(), newName);
         Toast.makeText(requireContext(), R.string.playlist_renamed, Toast.LENGTH_SHORT).show();
     }
 
-    private void deletePlaylist(PlaylistWithSongs playlistWithSongs) {
-        viewModel.deletePlaylist(playlistWithSongs.playlist);
+    private void deletePlaylist(PlaylistSummary playlist) {
+        viewModel.deletePlaylist(playlist.toPlaylist());
         Toast.makeText(requireContext(), R.string.playlist_deleted, Toast.LENGTH_SHORT).show();
     }
 
     @Override
-    public void onPlaylistClick(PlaylistWithSongs playlist) {
+    public void onPlaylistClick(PlaylistSummary playlist) {
         Intent intent = new Intent(requireContext(), PlaylistDetailActivity.class);
-        intent.putExtra("playlist_id", playlist.playlist.getId());
+        intent.putExtra("playlist_id", playlist.id);
         startActivity(intent);
     }
 
     @Override
-    public void onPlaylistRename(PlaylistWithSongs playlist) {
+    public void onPlaylistRename(PlaylistSummary playlist) {
         showRenamePlaylistDialog(playlist);
     }
 
     @Override
-    public void onPlaylistDelete(PlaylistWithSongs playlist) {
+    public void onPlaylistDelete(PlaylistSummary playlist) {
         showDeletePlaylistDialog(playlist);
     }
 
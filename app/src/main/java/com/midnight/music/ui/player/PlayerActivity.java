@@ -51,12 +51,11 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.network.LrcLibService;
 import com.midnight.music.data.network.LrcResponse;
 import com.midnight.music.utils.LrcParser;
@@ -1030,12 +1029,8 @@ public class PlayerActivity extends AppCompatActivity
     // ═══════════════════════════════════════
 
     private void setupLyrics() {
-        // Build LRCLib Retrofit client
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(LrcLibService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        lrcLibService = retrofit.create(LrcLibService.class);
+        // Shared LRCLib client
+        lrcLibService = ApiClients.create(LrcLibService.BASE_URL, LrcLibService.class);
 
         // Setup RecyclerView adapter
         lyricsAdapter = new LyricsAdapter();
@@ -18,7 +18,9 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.lifecycle.LiveData;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.palette.graphics.Palette;
 import androidx.core.content.ContextCompat;
 
@@ -28,8 +30,10 @@ import com.bumptech.glide.request.transition.Transition;
 import com.midnight.music.R;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistMembership;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.repository.MusicRepository;
 import com.midnight.music.databinding.ActivityPlaylistDetailBinding;
 import com.midnight.music.player.MusicPlayerManager;
 import com.midnight.music.ui.player.PlayerActivity;
@@ -41,17 +45,18 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
 import android.content.res.ColorStateList;
+import com.midnight.music.utils.AudioPrefetcher;
 import com.midnight.music.utils.ThemeManager;
 
 public class PlaylistDetailActivity extends AppCompatActivity implements SearchAdapter.SearchAdapterListener {
     private static final String TAG = "PlaylistDetailActivity";
+    private static final String PREFETCH_OWNER = "playlist_detail";
     private ActivityPlaylistDetailBinding binding;
     private PlaylistDetailViewModel viewModel;
     private SearchAdapter adapter;
     private long playlistId;
-    private PlaylistWithSongs currentPlaylist;
+    private PlaylistSummary currentPlaylist;
     private MusicPlayerManager playerManager;
     private AlertDialog currentPlaylistDialog = null;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
@@ -173,6 +178,59 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         adapter.setShowTrackNumbers(true); // Midnight Pulse: Show track numbers
         binding.songList.setAdapter(adapter);
         binding.songList.setLayoutManager(new LinearLayoutManager(this));
+
+        // Prefetch the start of every visible song so a tap starts from disk
+        AudioPrefetcher.getInstance(this).attach(binding.songList, PREFETCH_OWNER, position ->
+                position >= 0 && position < adapter.getItemCount() ? adapter.peek(position) : null);
+
+        setupReordering();
+    }
+
+    /**
+     * Long-press and drag to reorder. Rows only move on screen while dragging; the new
+     * position is stored once on drop and the paged list refreshes from the database.
+     */
+    private void setupReordering() {
+        new ItemTouchHelper(new ItemTouchHelper.SimpleCallback(ItemTouchHelper.UP | ItemTouchHelper.DOWN, 0) {
+            private int dragFrom = RecyclerView.NO_POSITION;
+            private int dragTo = RecyclerView.NO_POSITION;
+
+            @Override
+            public boolean onMove(@NonNull RecyclerView recyclerView,
+                                  @NonNull RecyclerView.ViewHolder viewHolder,
+                                  @NonNull RecyclerView.ViewHolder target) {
+                int from = viewHolder.getBindingAdapterPosition();
+                int to = target.getBindingAdapterPosition();
+                if (from == RecyclerView.NO_POSITION || to == RecyclerView.NO_POSITION) {
+                    return false;
+                }
+                if (dragFrom == RecyclerView.NO_POSITION) {
+                    dragFrom = from;
+                }
+                dragTo = to;
+                adapter.notifyItemMoved(from, to);
+                return true;
+            }
+
+            @Override
+            public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+                // Swipe is not enabled
+            }
+
+            @Override
+            public void clearView(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+                super.clearView(recyclerView, viewHolder);
+                if (dragFrom != RecyclerView.NO_POSITION && dragTo != RecyclerView.NO_POSITION && dragFrom != dragTo) {
+                    // The adapter's data is still in the old order, so dragFrom is the moved song
+                    Song song = adapter.peek(dragFrom);
+                    if (song != null) {
+                        viewModel.moveSong(song, dragTo);
+                    }
+                }
+                dragFrom = RecyclerView.NO_POSITION;
+                dragTo = RecyclerView.NO_POSITION;
+            }
+        }).attachToRecyclerView(binding.songList);
     }
 
     private void setupViewModel() {
@@ -181,6 +239,30 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
                 .get(PlaylistDetailViewModel.class);
 
         viewModel.getPlaylist().observe(this, this::updateUI);
+        viewModel.getSongs().observe(this, pagingData -> adapter.submitData(getLifecycle(), pagingData));
+    }
+
+    /**
+     * Runs {@code action} on the main thread with every song of the playlist. The
+     * adapter only holds the pages around the visible range, so whole-list actions
+     * load the list once, off the main thread.
+     */
+    private void withAllSongs(java.util.function.Consumer<List<Song>> action) {
+        viewModel.loadAllSongs(new MusicRepository.SearchCallback() {
+            @Override
+            public void onSuccess(List<Song> songs) {
+                mainHandler.post(() -> {
+                    if (!isDestroyed()) {
+                        action.accept(songs);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading playlist songs", e);
+            }
+        });
     }
 
     private void setupMiniPlayer() {
@@ -257,15 +339,23 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
                         .start();
 
                 Executors.newSingleThreadExecutor().execute(() -> {
-                    AppDatabase db = AppDatabase.getInstance(this);
-                    boolean isCurrentlyLiked = db.songDao().isSongLiked(currentSong.getId());
-                    boolean newLikedState = !isCurrentlyLiked;
-
-                    currentSong.setLiked(newLikedState);
-                    currentSong.setTimestamp(System.currentTimeMillis());
-                    db.songDao().insert(currentSong);
+                    // The player's copy may be stale; toggle from the stored state.
+                    // The repository updates Liked Songs and queues the change for sync
+                    boolean isCurrentlyLiked = AppDatabase.getInstance(this).songDao()
+                            .isSongLiked(currentSong.getId());
+                    currentSong.setLiked(isCurrentlyLiked);
+                    MusicRepository.getInstance(this).toggleLikeSong(currentSong,
+                            new MusicRepository.LikeCallback() {
+                                @Override
+                                public void onComplete(boolean isLiked) {
+                                    mainHandler.post(() -> updateHeartButton(isLiked));
+                                }
 
-                    mainHandler.post(() -> updateHeartButton(newLikedState));
+                                @Override
+                                public void onError(Exception e) {
+                                    Log.e(TAG, "Error toggling favorite", e);
+                                }
+                            });
                 });
             } catch (Exception e) {
                 Log.e(TAG, "Error toggling favorite", e);
@@ -345,9 +435,9 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
 
     private void setupPlayAllButton() {
         binding.fabPlay.setOnClickListener(v -> {
-            if (currentPlaylist != null && currentPlaylist.songs != null && !currentPlaylist.songs.isEmpty()) {
+            if (currentPlaylist != null && currentPlaylist.getSongCount() > 0) {
                 // Play all songs from the playlist from the beginning
-                playerManager.playQueue(currentPlaylist.songs, 0);
+                withAllSongs(songs -> playerManager.playQueue(songs, 0));
             } else {
                 Toast.makeText(this, "No songs in playlist", Toast.LENGTH_SHORT).show();
             }
@@ -358,10 +448,12 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         // ──── Shuffle Button ────
         if (binding.btnShuffle != null) {
             binding.btnShuffle.setOnClickListener(v -> {
-                if (currentPlaylist != null && currentPlaylist.songs != null && !currentPlaylist.songs.isEmpty()) {
-                    List<Song> shuffled = new ArrayList<>(currentPlaylist.songs);
-                    java.util.Collections.shuffle(shuffled);
-                    playerManager.playQueue(shuffled, 0);
+                if (currentPlaylist != null && currentPlaylist.getSongCount() > 0) {
+                    withAllSongs(songs -> {
+                        List<Song> shuffled = new ArrayList<>(songs);
+                        java.util.Collections.shuffle(shuffled);
+                        playerManager.playQueue(shuffled, 0);
+                    });
                 } else {
                     Toast.makeText(this, "No songs to shuffle", Toast.LENGTH_SHORT).show();
                 }
@@ -371,120 +463,11 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         // ──── Download All Button ────
         if (binding.btnDownload != null) {
             binding.btnDownload.setOnClickListener(v -> {
-                if (currentPlaylist == null || currentPlaylist.songs == null || currentPlaylist.songs.isEmpty()) {
+                if (currentPlaylist == null || currentPlaylist.getSongCount() == 0) {
                     Toast.makeText(this, "No songs to download", Toast.LENGTH_SHORT).show();
                     return;
                 }
-
-                com.midnight.music.utils.DownloadManager dlManager =
-                        com.midnight.music.utils.DownloadManager.getInstance(this);
-
-                // Count how many songs still need downloading
-                int alreadyDownloaded = 0;
-                List<Song> toDownload = new ArrayList<>();
-                for (Song song : currentPlaylist.songs) {
-                    if (song.isDownloaded()) {
-                        alreadyDownloaded++;
-                    } else {
-                        toDownload.add(song);
-                    }
-                }
-
-                final AtomicInteger completed = new AtomicInteger(0);
-                final AtomicInteger errorCount = new AtomicInteger(0);
-                final int total = toDownload.size();
-
-                binding.btnDownload.setEnabled(false);
-                binding.btnDownload.setVisibility(View.INVISIBLE);
-                if (binding.progressDownload != null) {
-                    binding.progressDownload.setIndeterminate(false);
-                    binding.progressDownload.setMax(total * 100);
-                    binding.progressDownload.setProgressCompat(0, true);
-                    binding.progressDownload.setVisibility(View.VISIBLE);
-                }
-
-                for (Song song : toDownload) {
-                    dlManager.downloadSong(song, new com.midnight.music.utils.DownloadManager.DownloadListener() {
-                        @Override
-                        public void onProgress(int percent) { 
-                            mainHandler.post(() -> {
-                                if (!isDestroyed() && binding != null && binding.progressDownload != null) {
-                                    // Progress is scaled by number of completed items
-                                    int currentProgress = (completed.get() * 100) + percent;
-                                    binding.progressDownload.setProgressCompat(currentProgress, true);
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onComplete(String filePath) {
-                            completed.incrementAndGet();
-                            mainHandler.post(() -> {
-                                if (!isDestroyed()) {
-                                    if (binding != null && binding.progressDownload != null) {
-                                        binding.progressDownload.setProgressCompat(completed.get() * 100, true);
-                                    }
-                                    if (completed.get() >= total) {
-                                        if (binding != null && binding.progressDownload != null) {
-                                            binding.progressDownload.setVisibility(View.GONE);
-                                        }
-                                        if (binding != null && binding.btnDownload != null) {
-                                            if (errorCount.get() == 0) {
-                                                binding.btnDownload.setImageResource(R.drawable.ic_download_done);
-                                            } else {
-                                                binding.btnDownload.setImageResource(R.drawable.ic_download);
-                                            }
-                                            binding.btnDownload.setVisibility(View.VISIBLE);
-                                            binding.btnDownload.setEnabled(true);
-                                        }
-                                        if (errorCount.get() == 0) {
-                                            Toast.makeText(PlaylistDetailActivity.this,
-                                                    "All songs downloaded!", Toast.LENGTH_SHORT).show();
-                                        } else {
-                                            Toast.makeText(PlaylistDetailActivity.this,
-                                                    "Downloads finished with " + errorCount.get() + " error(s)", Toast.LENGTH_SHORT).show();
-                                        }
-                                    }
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onError(Exception e) {
-                            completed.incrementAndGet();
-                            errorCount.incrementAndGet();
-                            Log.e(TAG, "Failed to download: " + song.getSong(), e);
-                            mainHandler.post(() -> {
-                                if (!isDestroyed()) {
-                                    if (binding != null && binding.progressDownload != null) {
-                                        binding.progressDownload.setProgressCompat(completed.get() * 100, true);
-                                    }
-                                    if (completed.get() >= total) {
-                                        if (binding != null && binding.progressDownload != null) {
-                                            binding.progressDownload.setVisibility(View.GONE);
-                                        }
-                                        if (binding != null && binding.btnDownload != null) {
-                                            if (errorCount.get() == 0) {
-                                                binding.btnDownload.setImageResource(R.drawable.ic_download_done);
-                                            } else {
-                                                binding.btnDownload.setImageResource(R.drawable.ic_download);
-                                            }
-                                            binding.btnDownload.setVisibility(View.VISIBLE);
-                                            binding.btnDownload.setEnabled(true);
-                                        }
-                                        if (errorCount.get() == 0) {
-                                            Toast.makeText(PlaylistDetailActivity.this,
-                                                    "All songs downloaded!", Toast.LENGTH_SHORT).show();
-                                        } else {
-                                            Toast.makeText(PlaylistDetailActivity.this,
-                                                    "Downloads finished with " + errorCount.get() + " error(s)", Toast.LENGTH_SHORT).show();
-                                        }
-                                    }
-                                }
-                            });
-                        }
-                    });
-                }
+                withAllSongs(this::downloadAll);
             });
         }
 
@@ -509,11 +492,78 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         }
     }
 
+    private void downloadAll(List<Song> songs) {
+        if (binding.btnDownload == null) return;
+
+        com.midnight.music.utils.DownloadManager dlManager =
+                com.midnight.music.utils.DownloadManager.getInstance(this);
+
+        // Count how many songs still need downloading
+        int alreadyDownloaded = 0;
+        List<Song> toDownload = new ArrayList<>();
+        for (Song song : songs) {
+            if (song.isDownloaded()) {
+                alreadyDownloaded++;
+            } else {
+                toDownload.add(song);
+            }
+        }
+
+        binding.btnDownload.setEnabled(false);
+        binding.btnDownload.setVisibility(View.INVISIBLE);
+        if (binding.progressDownload != null) {
+            binding.progressDownload.setIndeterminate(false);
+            binding.progressDownload.setMax(100);
+            binding.progressDownload.setProgressCompat(0, true);
+            binding.progressDownload.setVisibility(View.VISIBLE);
+        }
+
+        // One batch for the whole playlist: a single throttled progress stream
+        String batchTitle = currentPlaylist != null ? currentPlaylist.name : "Playlist";
+        dlManager.downloadSongs(batchTitle, toDownload, new com.midnight.music.utils.DownloadBatch.BatchListener() {
+            @Override
+            public void onProgress(int percent, int finished, int total) {
+                if (!isDestroyed() && binding != null && binding.progressDownload != null) {
+                    binding.progressDownload.setProgressCompat(percent, true);
+                }
+            }
+
+            @Override
+            public void onComplete(int succeeded, int failed) {
+                if (isDestroyed()) {
+                    return;
+                }
+                if (failed > 0) {
+                    Log.e(TAG, failed + " song(s) failed to download");
+                }
+                if (binding != null && binding.progressDownload != null) {
+                    binding.progressDownload.setVisibility(View.GONE);
+                }
+                if (binding != null && binding.btnDownload != null) {
+                    if (failed == 0) {
+                        binding.btnDownload.setImageResource(R.drawable.ic_download_done);
+                    } else {
+                        binding.btnDownload.setImageResource(R.drawable.ic_download);
+                    }
+                    binding.btnDownload.setVisibility(View.VISIBLE);
+                    binding.btnDownload.setEnabled(true);
+                }
+                if (failed == 0) {
+                    Toast.makeText(PlaylistDetailActivity.this,
+                            "All songs downloaded!", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(PlaylistDetailActivity.this,
+                            "Downloads finished with " + failed + " error(s)", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
     private void showRenameDialog() {
         if (currentPlaylist == null) return;
 
         android.widget.EditText input = new android.widget.EditText(this);
-        input.setText(currentPlaylist.playlist.getName());
+        input.setText(currentPlaylist.name);
         input.setSelectAllOnFocus(true);
         input.setPadding(48, 32, 48, 16);
 
@@ -526,14 +576,11 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
                         Toast.makeText(this, "Name cannot be empty", Toast.LENGTH_SHORT).show();
                         return;
                     }
-                    Executors.newSingleThreadExecutor().execute(() -> {
-                        AppDatabase.getInstance(this).playlistDao()
-                                .updatePlaylistName(playlistId, newName);
-                        mainHandler.post(() -> {
-                            binding.collapsingToolbar.setTitle(newName);
-                            Toast.makeText(this, "Playlist renamed", Toast.LENGTH_SHORT).show();
-                        });
-                    });
+                    MusicRepository.getInstance(this).renamePlaylist(playlistId, newName, () ->
+                            mainHandler.post(() -> {
+                                binding.collapsingToolbar.setTitle(newName);
+                                Toast.makeText(this, "Playlist renamed", Toast.LENGTH_SHORT).show();
+                            }));
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -544,16 +591,13 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
 
         new AlertDialog.Builder(this)
                 .setTitle("Delete Playlist")
-                .setMessage("Are you sure you want to delete \"" + currentPlaylist.playlist.getName() + "\"?")
+                .setMessage("Are you sure you want to delete \"" + currentPlaylist.name + "\"?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    Executors.newSingleThreadExecutor().execute(() -> {
-                        AppDatabase.getInstance(this).playlistDao()
-                                .delete(currentPlaylist.playlist);
-                        mainHandler.post(() -> {
-                            Toast.makeText(this, "Playlist deleted", Toast.LENGTH_SHORT).show();
-                            finish();
-                        });
-                    });
+                    MusicRepository.getInstance(this).deletePlaylist(currentPlaylist.toPlaylist(), () ->
+                            mainHandler.post(() -> {
+                                Toast.makeText(this, "Playlist deleted", Toast.LENGTH_SHORT).show();
+                                finish();
+                            }));
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -670,26 +714,23 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         }
     }
 
-    private void updateUI(PlaylistWithSongs playlist) {
+    private void updateUI(PlaylistSummary playlist) {
         if (playlist == null) return;
 
         // Store current playlist for later use
         this.currentPlaylist = playlist;
 
         // Hide More Options (rename/delete) for the special "Liked Songs" playlist
-        boolean isLikedSongs = getString(R.string.liked_songs).equals(playlist.playlist.getName());
+        boolean isLikedSongs = getString(R.string.liked_songs).equals(playlist.name);
         if (binding.btnMore != null) {
             binding.btnMore.setVisibility(isLikedSongs ? View.GONE : View.VISIBLE);
         }
 
-        binding.collapsingToolbar.setTitle(playlist.playlist.getName());
+        binding.collapsingToolbar.setTitle(playlist.name);
         binding.songCount.setText(playlist.getFormattedSongCount());
 
-        // Update songs list
-        adapter.submitList(playlist.songs);
-
-        // Show empty state if needed
-        if (playlist.songs == null || playlist.songs.isEmpty()) {
+        // Songs are paged into the adapter separately; only the header is updated here
+        if (playlist.getSongCount() == 0) {
             binding.emptyView.setVisibility(View.VISIBLE);
             binding.songList.setVisibility(View.GONE);
             if (binding.btnDownload != null) {
@@ -698,28 +739,19 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         } else {
             binding.emptyView.setVisibility(View.GONE);
             binding.songList.setVisibility(View.VISIBLE);
-            
-            // Check if fully downloaded
-            boolean allDownloaded = true;
-            for (Song song : playlist.songs) {
-                if (!song.isDownloaded()) {
-                    allDownloaded = false;
-                    break;
-                }
-            }
             if (binding.btnDownload != null) {
-                binding.btnDownload.setImageResource(allDownloaded ? R.drawable.ic_download_done : R.drawable.ic_download);
+                binding.btnDownload.setImageResource(playlist.isFullyDownloaded() ? R.drawable.ic_download_done : R.drawable.ic_download);
             }
         }
 
         // Load playlist image if available
-        if (playlist.songs != null && !playlist.songs.isEmpty()) {
-            Song firstSong = playlist.songs.get(0);
+        String coverUrl = playlist.getFirstImageUrl();
+        if (coverUrl != null) {
             Glide.with(this)
-                    .load(firstSong.getImageUrl())
+                    .load(coverUrl)
                     .placeholder(R.drawable.placeholder_album)
                     .into(binding.playlistImage);
-        } else if (getString(R.string.liked_songs).equals(playlist.playlist.getName())) {
+        } else if (isLikedSongs) {
             // Special image for Liked Songs
             binding.playlistImage.setImageResource(R.drawable.placeholder_album);
             binding.playlistImage.setBackgroundColor(getResources().getColor(R.color.accent, getTheme()));
@@ -783,23 +815,30 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
      * @param selectedSong The song that was clicked
      */
     private void playFromPlaylist(Song selectedSong) {
-        if (currentPlaylist == null || currentPlaylist.songs == null || currentPlaylist.songs.isEmpty()) {
+        if (currentPlaylist == null || currentPlaylist.getSongCount() == 0) {
             // Fallback to just playing the selected song if the playlist is empty or null
             MusicPlayerManager.getInstance(this).playSong(selectedSong);
             return;
         }
 
-        // Find the index of the selected song
-        int startIndex = 0;
-        for (int i = 0; i < currentPlaylist.songs.size(); i++) {
-            if (currentPlaylist.songs.get(i).getId().equals(selectedSong.getId())) {
-                startIndex = i;
-                break;
+        withAllSongs(songs -> {
+            if (songs == null || songs.isEmpty()) {
+                MusicPlayerManager.getInstance(this).playSong(selectedSong);
+                return;
+            }
+
+            // Find the index of the selected song
+            int startIndex = 0;
+            for (int i = 0; i < songs.size(); i++) {
+                if (songs.get(i).getId().equals(selectedSong.getId())) {
+                    startIndex = i;
+                    break;
+                }
             }
-        }
 
-        // Play all songs in the playlist, starting from the selected song
-        MusicPlayerManager.getInstance(this).playQueue(currentPlaylist.songs, startIndex);
+            // Play all songs in the playlist, starting from the selected song
+            MusicPlayerManager.getInstance(this).playQueue(songs, startIndex);
+        });
     }
 
     @Override
@@ -817,7 +856,7 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         AppDatabase db = AppDatabase.getInstance(this);
         
         // Create a new LiveData instance to avoid multiple observers
-        LiveData<List<PlaylistWithSongs>> playlistsLiveData = db.playlistDao().getAllPlaylistsWithSongs();
+        LiveData<List<PlaylistMembership>> playlistsLiveData = db.playlistDao().getPlaylistMemberships(song.getId());
         
         // Make sure to remove any existing observers
         playlistsLiveData.removeObservers(this);
@@ -846,18 +885,9 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
             boolean[] checkedItems = new boolean[playlists.size()];
             
             for (int i = 0; i < playlists.size(); i++) {
-                playlistNames[i] = playlists.get(i).playlist.getName();
-                playlistIds[i] = playlists.get(i).playlist.getId();
-                
-                // Check if the song is already in this playlist
-                if (playlists.get(i).songs != null) {
-                    for (Song playlistSong : playlists.get(i).songs) {
-                        if (playlistSong.getId().equals(song.getId())) {
-                            checkedItems[i] = true;
-                            break;
-                        }
-                    }
-                }
+                playlistNames[i] = playlists.get(i).name;
+                playlistIds[i] = playlists.get(i).id;
+                checkedItems[i] = playlists.get(i).containsSong;
             }
             
             // Use our custom dialog style with multi-choice items
@@ -935,13 +965,12 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
         
         // If we're currently viewing the special "Liked Songs" collection and 
         // unliking a song, we need to refresh the view to remove that song
-        if (!newIsLiked && currentPlaylist != null && 
-            currentPlaylist.playlist != null &&
-            getString(R.string.liked_songs).equals(currentPlaylist.playlist.getName())) {
+        if (!newIsLiked && currentPlaylist != null &&
+            getString(R.string.liked_songs).equals(currentPlaylist.name)) {
                 
             // Wait a moment for the database to update then refresh
             new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                viewModel.loadPlaylist(currentPlaylist.playlist.getId());
+                viewModel.loadPlaylist(currentPlaylist.id);
             }, 300);
         }
     }
@@ -968,6 +997,7 @@ public class PlaylistDetailActivity extends AppCompatActivity implements SearchA
             currentPlaylistDialog.dismiss();
         }
         mainHandler.removeCallbacksAndMessages(null);
+        AudioPrefetcher.getInstance(this).clear(PREFETCH_OWNER);
         binding = null;
     }
 } 
@@ -6,15 +6,19 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.midnight.music.R;
 import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.db.PlaylistDao;
 import com.midnight.music.data.db.SongDao;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.model.PlaylistSummary;
 import com.midnight.music.data.model.Song;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
 import com.midnight.music.data.model.Playlist;
+import com.midnight.music.data.repository.MusicRepository;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -25,7 +29,8 @@ public class PlaylistDetailViewModel extends AndroidViewModel {
     private final PlaylistDao playlistDao;
     private final SongDao songDao;
     private final Executor executor;
-    private final LiveData<PlaylistWithSongs> playlist;
+    private final LiveData<PlaylistSummary> playlist;
+    private final LiveData<PagingData<Song>> songs;
     private final long playlistId;
     private final Application application;
 
@@ -37,13 +42,28 @@ public class PlaylistDetailViewModel extends AndroidViewModel {
         playlistDao = db.playlistDao();
         songDao = db.songDao();
         executor = Executors.newSingleThreadExecutor();
-        playlist = playlistDao.getPlaylistWithSongs(playlistId);
+        MusicRepository repository = MusicRepository.getInstance(application);
+        playlist = repository.getPlaylistSummary(playlistId);
+        songs = PagingLiveData.cachedIn(repository.getPlaylistSongsPaged(playlistId),
+                ViewModelKt.getViewModelScope(this));
     }
 
-    public LiveData<PlaylistWithSongs> getPlaylist() {
+    public LiveData<PlaylistSummary> getPlaylist() {
         return playlist;
     }
 
+    public LiveData<PagingData<Song>> getSongs() {
+        return songs;
+    }
+
+    /**
+     * Loads every song of the playlist for whole-list actions (play all, shuffle,
+     * download all). The callback runs on a background thread.
+     */
+    public void loadAllSongs(MusicRepository.SearchCallback callback) {
+        MusicRepository.getInstance(application).loadPlaylistSongs(playlistId, callback);
+    }
+
     /**
      * Forces a reload of the playlist data
      * @param playlistId ID of the playlist to reload
@@ -72,9 +92,13 @@ public class PlaylistDetailViewModel extends AndroidViewModel {
         });
     }
 
+    public void moveSong(Song song, int toIndex) {
+        if (song == null || song.getId() == null) return;
+        MusicRepository.getInstance(application).moveSongInPlaylist(playlistId, song.getId(), toIndex);
+    }
+
     public void removeSongFromPlaylist(Song song) {
-        executor.execute(() -> {
-            playlistDao.removeSongFromPlaylist(playlistId, song.getId());
-        });
+        // Through the repository, so Liked Songs unlikes the song and the removal is synced
+        MusicRepository.getInstance(application).removeSongFromPlaylist(playlistId, song.getId(), null);
     }
 } 
@@ -9,8 +9,8 @@ import android.widget.PopupMenu;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.midnight.music.R;
@@ -18,7 +18,11 @@ import com.midnight.music.data.model.Song;
 import com.midnight.music.utils.ImageLoader;
 import com.google.android.material.imageview.ShapeableImageView;
 
-public class SearchAdapter extends ListAdapter<Song, SearchAdapter.SongViewHolder> {
+/**
+ * Paged song list with track numbers and a per-song options menu.
+ * Items not loaded yet are null placeholders.
+ */
+public class SearchAdapter extends PagingDataAdapter<Song, SearchAdapter.SongViewHolder> {
 
     private final SearchAdapterListener listener;
 
@@ -73,7 +77,7 @@ public class SearchAdapter extends ListAdapter<Song, SearchAdapter.SongViewHolde
 
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
+                if (position != RecyclerView.NO_POSITION && getItem(position) != null) {
                     listener.onSongClick(getItem(position));
                 }
             });
@@ -88,6 +92,14 @@ public class SearchAdapter extends ListAdapter<Song, SearchAdapter.SongViewHolde
             } else {
                 trackNumber.setVisibility(View.GONE);
             }
+
+            if (song == null) {
+                // Placeholder until the page is loaded
+                songName.setText("");
+                songInfo.setText("");
+                songImage.setImageResource(R.drawable.placeholder_song);
+                return;
+            }
             
             songName.setText(song.getSong());
             songInfo.setText(String.format("%s • %s • %s",
@@ -106,7 +118,7 @@ public class SearchAdapter extends ListAdapter<Song, SearchAdapter.SongViewHolde
             popup.inflate(R.menu.menu_song_options);
             
             int position = getAdapterPosition();
-            if (position != RecyclerView.NO_POSITION) {
+            if (position != RecyclerView.NO_POSITION && getItem(position) != null) {
                 Song song = getItem(position);
                 
                 // Set the correct text and icon for the like/unlike menu item
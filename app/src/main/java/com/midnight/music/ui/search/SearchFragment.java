@@ -6,6 +6,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.net.ConnectivityManager;
+import android.net.NetworkCapabilities;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -32,6 +34,7 @@ import com.midnight.music.databinding.FragmentSearchBinding;
 import com.midnight.music.data.model.Artist;
 import com.midnight.music.data.model.SearchItem;
 import com.midnight.music.data.model.Song;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.network.JioSaavnService;
 import com.midnight.music.data.network.SaavnApiService;
 import com.midnight.music.data.network.SaavnSearchResponse;
@@ -46,7 +49,8 @@ import com.midnight.music.data.db.AppDatabase;
 import com.midnight.music.data.model.PlaylistSongCrossRef;
 import com.midnight.music.data.model.Playlist;
 import com.midnight.music.data.network.SongResponse;
-import com.midnight.music.data.model.PlaylistWithSongs;
+import com.midnight.music.data.repository.MusicRepository;
+import com.midnight.music.data.model.PlaylistMembership;
 import com.midnight.music.ui.settings.SettingsActivity;
 
 import java.util.ArrayList;
@@ -57,8 +61,6 @@ import java.util.concurrent.Executors;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class SearchFragment extends Fragment {
     private FragmentSearchBinding binding;
@@ -95,6 +97,11 @@ public class SearchFragment extends Fragment {
     private String currentQuery = "";
     private final List<Song> allSongs = new ArrayList<>();
     private final List<Artist> allArtists = new ArrayList<>();
+
+    // Matches from the on-device library, shown before (or, offline, instead of) remote results
+    private static final int LOCAL_LIMIT = 10;
+    private final List<Song> localSongs = new ArrayList<>();
+    private boolean searchingOffline = false;
     
     // Query coordination for concurrent callbacks
     private volatile boolean artistSearchDone = false;
@@ -113,18 +120,10 @@ public class SearchFragment extends Fragment {
 
     private void setupRetrofit() {
         // Primary API (new one with pagination)
-        Retrofit primaryRetrofit = new Retrofit.Builder()
-                .baseUrl(SaavnApiService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        primaryApi = primaryRetrofit.create(SaavnApiService.class);
+        primaryApi = ApiClients.create(SaavnApiService.BASE_URL, SaavnApiService.class);
 
         // Fallback API (old Vercel one)
-        Retrofit fallbackRetrofit = new Retrofit.Builder()
-                .baseUrl(JioSaavnService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        fallbackApi = fallbackRetrofit.create(JioSaavnService.class);
+        fallbackApi = ApiClients.create(JioSaavnService.BASE_URL, JioSaavnService.class);
     }
 
     @Override
@@ -342,6 +341,7 @@ public class SearchFragment extends Fragment {
         usingFallback = false;
         allSongs.clear();
         allArtists.clear();
+        localSongs.clear();
         // Reset coordination flags
         artistSearchDone = false;
         songSearchDone = false;
@@ -373,6 +373,12 @@ public class SearchFragment extends Fragment {
 
         if (currentPage == 1) {
             showLoadingState();
+            searchingOffline = !isOnline();
+            searchLocal(currentQuery);
+            if (searchingOffline) {
+                // Nothing to wait for: the library is all there is
+                return;
+            }
             // Search artists only on first page
             searchArtists(currentQuery, currentPage);
         }
@@ -381,6 +387,77 @@ public class SearchFragment extends Fragment {
         searchWithPrimaryApi(currentQuery, currentPage);
     }
 
+    /**
+     * Search the on-device library. Hits are shown as soon as they arrive and stay on
+     * top of the remote results.
+     */
+    private void searchLocal(String query) {
+        MusicRepository.getInstance(requireContext()).searchLocalSongs(query, LOCAL_LIMIT,
+                new MusicRepository.SearchCallback() {
+                    @Override
+                    public void onSuccess(List<Song> songs) {
+                        searchHandler.post(() -> onLocalResults(query, songs));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        searchHandler.post(() -> onLocalResults(query, new ArrayList<>()));
+                    }
+                });
+    }
+
+    private void onLocalResults(String query, List<Song> songs) {
+        // Ignore results for a query the user has already moved on from
+        if (!isAdded() || binding == null || !query.equals(currentQuery)) return;
+
+        localSongs.clear();
+        localSongs.addAll(songs);
+        if (searchingOffline) {
+            if (localSongs.isEmpty()) {
+                showError("Network error");
+            } else {
+                showSearchResults(new ArrayList<>(localSongs));
+            }
+        } else if (!localSongs.isEmpty()) {
+            List<Song> merged = new ArrayList<>();
+            appendUnique(merged, localSongs);
+            appendUnique(merged, allSongs);
+            showSearchResults(merged);
+        }
+    }
+
+    /**
+     * Shown when the remote search has nothing: the local hits if there are any,
+     * otherwise the given fallback state.
+     */
+    private void showLocalOr(Runnable fallback) {
+        if (!localSongs.isEmpty()) {
+            showSearchResults(new ArrayList<>(localSongs));
+        } else {
+            fallback.run();
+        }
+    }
+
+    // Adds the songs not already in target, keeping their order
+    private static void appendUnique(List<Song> target, List<Song> songs) {
+        java.util.Set<String> ids = new java.util.HashSet<>();
+        for (Song song : target) {
+            ids.add(song.getId());
+        }
+        for (Song song : songs) {
+            if (ids.add(song.getId())) {
+                target.add(song);
+            }
+        }
+    }
+
+    private boolean isOnline() {
+        ConnectivityManager cm = (ConnectivityManager) requireContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return true;
+        NetworkCapabilities capabilities = cm.getNetworkCapabilities(cm.getActiveNetwork());
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
     /**
      * Search using the new paginated API.
      */
@@ -402,7 +479,7 @@ public class SearchFragment extends Fragment {
                     List<SaavnSongResult> results = response.body().getData().getResults();
                     
                     if (results.isEmpty() && page == 1) {
-                        showEmptyState();
+                        showLocalOr(() -> showEmptyState());
                         return;
                     }
                     
@@ -422,8 +499,9 @@ public class SearchFragment extends Fragment {
                     
                     if (page == 1) {
                         allSongs.clear();
+                        allSongs.addAll(localSongs);
                     }
-                    allSongs.addAll(songs);
+                    appendUnique(allSongs, songs);
 
                     isLoadingMore = false;
                     showSearchResults(new ArrayList<>(allSongs));
@@ -474,18 +552,19 @@ public class SearchFragment extends Fragment {
                 if (response.isSuccessful() && response.body() != null) {
                     List<SongResponse> songResponses = response.body();
                     if (songResponses.isEmpty()) {
-                        showEmptyState();
+                        showLocalOr(() -> showEmptyState());
                     } else {
                         List<Song> songs = new ArrayList<>();
                         for (SongResponse songResponse : songResponses) {
                             songs.add(songResponse.toSong());
                         }
                         allSongs.clear();
-                        allSongs.addAll(songs);
+                        allSongs.addAll(localSongs);
+                        appendUnique(allSongs, songs);
                         showSearchResults(new ArrayList<>(allSongs));
                     }
                 } else {
-                    showError("Failed to get search results");
+                    showLocalOr(() -> showError("Failed to get search results"));
                 }
             }
 
@@ -493,7 +572,7 @@ public class SearchFragment extends Fragment {
             public void onFailure(@NonNull Call<List<SongResponse>> call, @NonNull Throwable t) {
                 if (!isAdded()) return;
                 if (!call.isCanceled()) {
-                    showError("Network error");
+                    showLocalOr(() -> showError("Network error"));
                 }
             }
         });
@@ -720,7 +799,7 @@ executor.execute(() -> {
 
         AppDatabase db = AppDatabase.getInstance(requireContext());
         
-        LiveData<List<PlaylistWithSongs>> playlistsLiveData = db.playlistDao().getAllPlaylistsWithSongs();
+        LiveData<List<PlaylistMembership>> playlistsLiveData = db.playlistDao().getPlaylistMemberships(song.getId());
         playlistsLiveData.removeObservers(getViewLifecycleOwner());
         
         final boolean[] observerCalled = {false};
@@ -743,17 +822,9 @@ executor.execute(() -> {
             boolean[] checkedItems = new boolean[playlists.size()];
             
             for (int i = 0; i < playlists.size(); i++) {
-                playlistNames[i] = playlists.get(i).playlist.getName();
-                playlistIds[i] = playlists.get(i).playlist.getId();
-                
-                if (playlists.get(i).songs != null) {
-                    for (Song playlistSong : playlists.get(i).songs) {
-                        if (playlistSong.getId().equals(song.getId())) {
-                            checkedItems[i] = true;
-                            break;
-                        }
-                    }
-                }
+                playlistNames[i] = playlists.get(i).name;
+                playlistIds[i] = playlists.get(i).id;
+                checkedItems[i] = playlists.get(i).containsSong;
             }
             
             AlertDialog.Builder builder = new AlertDialog.Builder(requireContext(), R.style.PlaylistDialogStyle)
@@ -17,7 +17,10 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.midnight.music.R;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.databinding.FragmentSettingsBinding;
+import com.midnight.music.player.MusicPlayerManager;
+import com.midnight.music.utils.AudioCacheManager;
 import com.midnight.music.utils.ThemeManager;
 
 import java.io.File;
@@ -45,6 +48,7 @@ public class SettingsActivity extends AppCompatActivity {
         setupThemePicker();
         setupDynamicAccent();
         setupAudioQuality();
+        setupCacheThreshold();
         setupClearCacheButton();
         setupAppInfoButton();
         setupCheckUpdatesButton();
@@ -185,6 +189,43 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
+    private void setupCacheThreshold() {
+        final String[] thresholdLabels = {"Immediately", "After 5 seconds", "After 15 seconds", "After 30 seconds", "After 60 seconds"};
+        final long[] thresholdValues = {0, 5_000, 15_000, 30_000, 60_000};
+
+        MusicPlayerManager playerManager = MusicPlayerManager.getInstance(this);
+        updateCacheThresholdSubtitle(playerManager.getCacheListenThresholdMs());
+
+        binding.cacheThresholdButton.setOnClickListener(v -> {
+            long current = playerManager.getCacheListenThresholdMs();
+            int checkedIndex = 2;
+            for (int i = 0; i < thresholdValues.length; i++) {
+                if (thresholdValues[i] == current) {
+                    checkedIndex = i;
+                    break;
+                }
+            }
+
+            new AlertDialog.Builder(this, R.style.AlertDialogTheme)
+                    .setTitle("Cache Next Song")
+                    .setSingleChoiceItems(thresholdLabels, checkedIndex, (dialog, which) -> {
+                        playerManager.setCacheListenThresholdMs(thresholdValues[which]);
+                        updateCacheThresholdSubtitle(thresholdValues[which]);
+                        dialog.dismiss();
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        });
+    }
+
+    private void updateCacheThresholdSubtitle(long thresholdMs) {
+        if (thresholdMs == 0) {
+            binding.cacheThresholdSubtitle.setText("As soon as a song starts");
+        } else {
+            binding.cacheThresholdSubtitle.setText("After " + (thresholdMs / 1000) + " seconds of listening");
+        }
+    }
+
     private void setupClearCacheButton() {
         binding.clearCacheButton.setOnClickListener(v -> {
             new AlertDialog.Builder(this, R.style.AlertDialogTheme)
@@ -200,8 +241,18 @@ public class SettingsActivity extends AppCompatActivity {
 
     private void clearCache() {
         try {
-            File cacheDir = getCacheDir();
-            deleteDir(cacheDir);
+            // The audio cache is live while the app runs; clear it through its manager
+            AudioCacheManager audioCache = AudioCacheManager.getInstance(this);
+            audioCache.clearCache();
+            ApiClients.clearCache();
+            File[] children = getCacheDir().listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (!audioCache.ownsFile(child) && !ApiClients.ownsFile(child)) {
+                        deleteDir(child);
+                    }
+                }
+            }
             Toast.makeText(this, "Cache cleared", Toast.LENGTH_SHORT).show();
         } catch (Exception e) {
             Toast.makeText(this, "Failed to clear cache", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,397 @@
+package com.midnight.music.utils;
+
+import android.util.Log;
+
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.cache.Cache;
+import androidx.media3.datasource.cache.CacheEvictor;
+import androidx.media3.datasource.cache.CacheSpan;
+import androidx.media3.datasource.cache.ContentMetadata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory LRU index of the audio cache, one entry per cache key (song URL).
+ * Doubles as the {@link CacheEvictor} of the SimpleCache: it tracks cached bytes,
+ * last access and pin state per key and evicts whole songs, least recently used
+ * first, skipping pinned ones.
+ *
+ * State is persisted to an append-only journal so last access and pins survive a
+ * restart. Journal lines:
+ * <pre>
+ *   A key lastAccess   accessed
+ *   P key              pinned
+ *   U key              unpinned
+ *   R key              removed
+ * </pre>
+ * The journal is compacted once it grows well past the number of live entries.
+ *
+ * Lines are buffered and written by a background thread a moment later, so cache
+ * reads never wait on disk. A crash loses at most the last few seconds of access
+ * order; the journal is replayed line by line and a torn last line is ignored, so it
+ * never gets corrupted. Compaction replaces the file atomically via rename.
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class AudioCacheIndex implements CacheEvictor {
+    private static final String TAG = "AudioCacheIndex";
+    private static final int COMPACT_THRESHOLD = 200;
+    private static final long JOURNAL_FLUSH_DELAY_MS = 2000;
+
+    private static final class Entry {
+        long bytes;
+        long lastAccess;
+        boolean pinned;
+        boolean complete;
+    }
+
+    private final long maxBytes;
+    private final File journalFile;
+    // Kept in access order by touch(): iteration starts at the least recently used key.
+    // Plain lookups deliberately don't reorder, only real reads of the audio do.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    // Pins may be set before the first byte of a key is cached
+    private final Set<String> pinnedKeys = new HashSet<>();
+    // All journal file I/O runs here, in order
+    private final ScheduledExecutorService journalIO = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audio-cache-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched on journalIO
+    private BufferedWriter journal;
+    private List<String> pendingLines = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private int journalLines = 0;
+    private long totalBytes = 0;
+    private boolean initialized = false;
+
+    public AudioCacheIndex(File journalFile, long maxBytes) {
+        this.journalFile = journalFile;
+        this.maxBytes = maxBytes;
+        readJournal();
+    }
+
+    // ── Lookups ──
+
+    /**
+     * O(1) check whether a key is fully cached. Keys that were never cached are
+     * answered from the map without touching the SimpleCache.
+     */
+    public boolean isFullyCached(Cache cache, String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.bytes == 0) {
+                return false;
+            }
+            if (entry.complete) {
+                return true;
+            }
+        }
+        // Content length may only be known after the last span was written.
+        // Called outside our lock: the cache calls back into us while holding its own.
+        boolean complete = computeComplete(cache, key);
+        if (complete) {
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    entry.complete = true;
+                }
+            }
+        }
+        return complete;
+    }
+
+    // ── Pins ──
+
+    /**
+     * Pins exactly the given keys; pinned keys are never evicted.
+     */
+    public synchronized void setPinnedKeys(Collection<String> keys) {
+        pinnedKeys.clear();
+        pinnedKeys.addAll(keys);
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            boolean shouldPin = pinnedKeys.contains(e.getKey());
+            if (e.getValue().pinned != shouldPin) {
+                e.getValue().pinned = shouldPin;
+                appendJournal((shouldPin ? "P " : "U ") + e.getKey());
+            }
+        }
+    }
+
+    // ── CacheEvictor ──
+
+    @Override
+    public boolean requiresCacheSpanTouches() {
+        return true;
+    }
+
+    @Override
+    public synchronized void onCacheInitialized() {
+        // Drop journal entries whose spans no longer exist on disk, and order the
+        // rest by last access (keys missing from the journal count as oldest)
+        List<Map.Entry<String, Entry>> live = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().bytes > 0) {
+                live.add(e);
+            }
+        }
+        Collections.sort(live, (a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+        entries.clear();
+        for (Map.Entry<String, Entry> e : live) {
+            entries.put(e.getKey(), e.getValue());
+        }
+        initialized = true;
+        compactJournal();
+    }
+
+    @Override
+    public synchronized void onStartFile(Cache cache, String key, long position, long length) {
+        if (length != C.LENGTH_UNSET) {
+            evict(cache, key, length);
+        }
+    }
+
+    @Override
+    public synchronized void onSpanAdded(Cache cache, CacheSpan span) {
+        Entry entry = getOrCreate(span.key);
+        entry.bytes += span.length;
+        totalBytes += span.length;
+        entry.complete = computeComplete(cache, span.key);
+        // During initialization spans are replayed from disk; keep the journal's
+        // last access instead of treating them as fresh writes
+        if (initialized) {
+            touch(span.key, entry);
+            evict(cache, span.key, 0);
+        }
+    }
+
+    @Override
+    public synchronized void onSpanRemoved(Cache cache, CacheSpan span) {
+        Entry entry = entries.get(span.key);
+        if (entry == null) {
+            return;
+        }
+        entry.bytes -= span.length;
+        entry.complete = false;
+        totalBytes -= span.length;
+        if (entry.bytes <= 0) {
+            entries.remove(span.key);
+            appendJournal("R " + span.key);
+        }
+    }
+
+    @Override
+    public synchronized void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+        Entry entry = entries.get(newSpan.key);
+        if (entry != null) {
+            entry.bytes += newSpan.length - oldSpan.length;
+            totalBytes += newSpan.length - oldSpan.length;
+            touch(newSpan.key, entry);
+        }
+    }
+
+    // ── Internals ──
+
+    private Entry getOrCreate(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entry.pinned = pinnedKeys.contains(key);
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    private void touch(String key, Entry entry) {
+        // Move to the most recently used end
+        entries.remove(key);
+        entries.put(key, entry);
+        entry.lastAccess = System.currentTimeMillis();
+        appendJournal("A " + key + " " + entry.lastAccess);
+    }
+
+    /**
+     * Evicts least recently used, unpinned songs until {@code incoming} more bytes fit.
+     * The key being written is never evicted.
+     */
+    private void evict(Cache cache, String writingKey, long incoming) {
+        if (totalBytes + incoming <= maxBytes) {
+            return;
+        }
+        List<String> victims = new ArrayList<>();
+        long projected = totalBytes + incoming;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (projected <= maxBytes) {
+                break;
+            }
+            if (e.getValue().pinned || e.getKey().equals(writingKey)) {
+                continue;
+            }
+            victims.add(e.getKey());
+            projected -= e.getValue().bytes;
+        }
+        for (String key : victims) {
+            Log.d(TAG, "Evicting cached audio: " + key);
+            // Calls back into onSpanRemoved for every span of the key
+            cache.removeResource(key);
+        }
+    }
+
+    private static boolean computeComplete(Cache cache, String key) {
+        long contentLength = ContentMetadata.getContentLength(cache.getContentMetadata(key));
+        return contentLength != C.LENGTH_UNSET && cache.isCached(key, 0, contentLength);
+    }
+
+    // ── Journal ──
+
+    private synchronized void readJournal() {
+        if (!journalFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                journalLines++;
+                String[] parts = line.split(" ", 3);
+                if (parts.length < 2) {
+                    continue;
+                }
+                String key = parts[1];
+                switch (parts[0]) {
+                    case "A":
+                        Entry entry = getOrCreate(key);
+                        if (parts.length == 3) {
+                            entry.lastAccess = Long.parseLong(parts[2]);
+                        }
+                        break;
+                    case "P":
+                        getOrCreate(key).pinned = true;
+                        break;
+                    case "U":
+                        getOrCreate(key).pinned = false;
+                        break;
+                    case "R":
+                        entries.remove(key);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A torn last line is expected after a crash; keep what was read
+            Log.w(TAG, "Journal truncated, rebuilding from cache", e);
+        }
+    }
+
+    /**
+     * Writes buffered journal lines now instead of after the flush delay.
+     * Called when playback is released.
+     */
+    public void flush() {
+        journalIO.execute(this::writePendingLines);
+    }
+
+    /**
+     * Buffers a journal line; a flush is scheduled for the first line of a batch.
+     * Caller holds the lock.
+     */
+    private void appendJournal(String line) {
+        if (!initialized) {
+            return;
+        }
+        pendingLines.add(line);
+        journalLines++;
+        if (journalLines > entries.size() * 2 + COMPACT_THRESHOLD) {
+            compactJournal();
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            journalIO.schedule(this::writePendingLines, JOURNAL_FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on journalIO
+    private void writePendingLines() {
+        List<String> lines;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pendingLines.isEmpty()) {
+                return;
+            }
+            lines = pendingLines;
+            pendingLines = new ArrayList<>();
+        }
+        try {
+            if (journal == null) {
+                journal = new BufferedWriter(new FileWriter(journalFile, true));
+            }
+            for (String line : lines) {
+                journal.write(line);
+                journal.newLine();
+            }
+            journal.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing cache journal", e);
+        }
+    }
+
+    /**
+     * Rewrites the journal with one line per live entry, oldest access first.
+     * The snapshot is taken under the lock and supersedes every buffered line;
+     * the file is written on journalIO. Caller holds the lock.
+     */
+    private void compactJournal() {
+        List<String> snapshot = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            snapshot.add("A " + e.getKey() + " " + e.getValue().lastAccess);
+            if (e.getValue().pinned) {
+                snapshot.add("P " + e.getKey());
+            }
+        }
+        pendingLines.clear();
+        journalLines = snapshot.size();
+        journalIO.execute(() -> rewriteJournal(snapshot));
+    }
+
+    // Runs on journalIO
+    private void rewriteJournal(List<String> lines) {
+        File tmp = new File(journalFile.getPath() + ".tmp");
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp, false))) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            if (!tmp.renameTo(journalFile)) {
+                throw new IOException("Failed to replace cache journal");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error compacting cache journal", e);
+            tmp.delete();
+        }
+    }
+}
@@ -1,36 +1,81 @@
 package com.midnight.music.utils;
 
 import android.content.Context;
+import android.net.Uri;
+import android.os.Process;
 import android.util.Log;
 
-import java.io.BufferedInputStream;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.okhttp.OkHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheSpan;
+import androidx.media3.datasource.cache.CacheWriter;
+import androidx.media3.datasource.cache.SimpleCache;
+import com.midnight.music.data.network.ApiClients;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Manages caching of audio files to disk.
- * Uses the application's cache directory to store downloaded audio files.
+ * Backed by a Media3 {@link SimpleCache}: ExoPlayer reads through
+ * {@link #getDataSourceFactory()}, so streamed bytes land in the cache as they
+ * are played instead of being downloaded a second time.
  */
+@OptIn(markerClass = UnstableApi.class)
 public class AudioCacheManager {
     private static final String TAG = "AudioCacheManager";
-    private static final String CACHE_DIR = "audio_cache";
+    private static final String CACHE_DIR = "media_cache";
+    private static final String JOURNAL_FILE = "media_cache.journal";
+    // Pre-SimpleCache directory of whole-file copies, removed on first start
+    private static final String LEGACY_CACHE_DIR = "audio_cache";
     private static final long MAX_CACHE_SIZE = 100 * 1024 * 1024; // 100 MB
     private static final Executor diskIO = Executors.newSingleThreadExecutor();
-    
+    // Background pre-caching runs one job at a time so it never competes with itself
+    private static final ExecutorService cacheIO = Executors.newSingleThreadExecutor();
+    // Prefix prefetching is lower priority still and never holds up a full-file job
+    private static final ExecutorService prefetchIO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "audio-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Context context;
     private final File cacheDir;
-    
+    private final File journalFile;
+    private final AudioCacheIndex index;
+    private final SimpleCache cache;
+    private final CacheDataSource.Factory dataSourceFactory;
+    // Same cache, but never writes: permanent downloads shouldn't churn the stream cache
+    private final CacheDataSource.Factory readOnlyDataSourceFactory;
+    // Queued or running transfers (full file, prefix or download copy), keyed by song id.
+    // One map so a key never has two transfers pulling the same bytes
+    private final Map<String, CacheJob> jobs = new ConcurrentHashMap<>();
+
     private static volatile AudioCacheManager instance;
-    
+
     /**
      * Gets the singleton instance of AudioCacheManager
      * @param context Application context
@@ -46,202 +91,446 @@ public class AudioCacheManager {
         }
         return instance;
     }
-    
+
     private AudioCacheManager(Context context) {
         this.context = context.getApplicationContext();
         this.cacheDir = new File(context.getCacheDir(), CACHE_DIR);
-        if (!cacheDir.exists()) {
-            cacheDir.mkdirs();
-        }
-        
-        // Run initial cleanup to ensure we're under the size limit
-        cleanupCache();
+        // Journal lives next to the cache directory, SimpleCache owns everything inside it
+        this.journalFile = new File(context.getCacheDir(), JOURNAL_FILE);
+
+        // The index is the evictor: O(1) lookups, incremental LRU eviction of whole songs,
+        // pins, and last-access state restored from its journal on a cold start
+        this.index = new AudioCacheIndex(journalFile, MAX_CACHE_SIZE);
+        this.cache = new SimpleCache(cacheDir, index, new StandaloneDatabaseProvider(this.context));
+
+        // Audio rides the shared OkHttp pool: streams, prefetches and downloads from the
+        // same CDN host reuse warm connections (OkHttp follows http<->https redirects).
+        // The streaming client skips the HTTP cache; audio is cached here instead
+        DataSource.Factory upstreamFactory = new DefaultDataSource.Factory(this.context,
+                new OkHttpDataSource.Factory(ApiClients.getStreamingClient()));
+        this.dataSourceFactory = new CacheDataSource.Factory()
+                .setCache(cache)
+                .setUpstreamDataSourceFactory(upstreamFactory)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+        this.readOnlyDataSourceFactory = new CacheDataSource.Factory()
+                .setCache(cache)
+                .setUpstreamDataSourceFactory(upstreamFactory)
+                .setCacheWriteDataSinkFactory(null)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+
+        deleteLegacyCache();
     }
-    
+
+    /**
+     * Read-through data source for ExoPlayer. Cached ranges are served from disk,
+     * everything else is streamed from the network and written to the cache.
+     */
+    public DataSource.Factory getDataSourceFactory() {
+        return dataSourceFactory;
+    }
+
     /**
      * Gets the local file path for a cached audio URL.
+     * Only available when the whole file is cached in a single span.
      * @param url The URL of the audio file
      * @return The local file path if cached, null otherwise
      */
     public String getCachedFilePath(String url) {
-        if (url == null || url.isEmpty()) {
+        if (!isUrlCached(url)) {
+            return null;
+        }
+
+        NavigableSet<CacheSpan> spans = cache.getCachedSpans(url);
+        if (spans.size() != 1) {
             return null;
         }
-        
-        String fileName = getFileNameForUrl(url);
-        File cachedFile = new File(cacheDir, fileName);
-        
-        return cachedFile.exists() ? cachedFile.getAbsolutePath() : null;
+        File file = spans.first().file;
+        return file != null ? file.getAbsolutePath() : null;
     }
-    
+
     /**
-     * Checks if an audio URL is cached.
+     * Checks if an audio URL is fully cached.
      * @param url The URL to check
      * @return true if cached, false otherwise
      */
     public boolean isUrlCached(String url) {
-        return getCachedFilePath(url) != null;
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        return index.isFullyCached(cache, url);
     }
-    
+
+    /**
+     * Protects the given URLs (typically the current and next song) from eviction.
+     * Pins of any other URL are released.
+     */
+    public void setPinnedUrls(Collection<String> urls) {
+        index.setPinnedKeys(urls);
+    }
+
+    /**
+     * Writes the cache index's buffered journal lines without waiting for the
+     * next scheduled flush.
+     */
+    public void flushIndex() {
+        index.flush();
+    }
+
+    /**
+     * Whether a file or directory under the app cache dir belongs to the audio cache.
+     * Used by "Clear cache" to leave the live SimpleCache files alone.
+     */
+    public boolean ownsFile(File file) {
+        String path = file.getAbsolutePath();
+        return path.equals(cacheDir.getAbsolutePath()) || path.startsWith(journalFile.getAbsolutePath());
+    }
+
     /**
-     * Downloads an audio file and caches it.
+     * Pulls an audio file into the cache without playing it.
+     * Do not call this for a URL the player is currently streaming; the player
+     * already writes those bytes to the cache.
+     * @param key Song id the job is tracked under
      * @param url The URL to download and cache
      * @param listener Listener for download completion
+     * @return Handle that cancels the job, or null if the URL is invalid
      */
-    public void cacheAudioFile(String url, CacheListener listener) {
+    public CacheJob cacheAudioFile(String key, String url, CacheListener listener) {
         if (url == null || url.isEmpty()) {
             if (listener != null) {
                 listener.onCacheError(new IllegalArgumentException("URL cannot be null or empty"));
             }
-            return;
+            return null;
         }
-        
-        // Check if already cached
-        String cachedPath = getCachedFilePath(url);
-        if (cachedPath != null) {
-            if (listener != null) {
-                listener.onCacheComplete(cachedPath);
+
+        return submitJob(cacheIO, key, url, new DataSpec(Uri.parse(url)), false, listener);
+    }
+
+    /**
+     * Pulls only the first {@code length} bytes of an audio file into the cache, so
+     * a later tap starts from disk. Runs on a low-priority thread, separate from
+     * full-file jobs.
+     * @param key Song id the job is tracked under
+     * @param url The URL to prefetch
+     * @param length Number of bytes from the start of the file
+     * @param listener Optional; told how many bytes were actually fetched
+     * @return Handle that cancels the job
+     */
+    public CacheJob cacheAudioPrefix(String key, String url, long length, CacheListener listener) {
+        DataSpec dataSpec = new DataSpec.Builder()
+                .setUri(Uri.parse(url))
+                .setPosition(0)
+                .setLength(length)
+                .build();
+        return submitJob(prefetchIO, key, url, dataSpec, true, listener);
+    }
+
+    /**
+     * Whether a transfer of any kind is queued or running for {@code key}.
+     */
+    public boolean hasCacheJob(String key) {
+        return jobs.containsKey(key);
+    }
+
+    /**
+     * Whether at least the first {@code length} bytes of a URL are cached.
+     */
+    public boolean isPrefixCached(String url, long length) {
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        return isUrlCached(url) || cache.isCached(url, 0, length);
+    }
+
+    private CacheJob submitJob(ExecutorService executor, String key, String url, DataSpec dataSpec,
+                               boolean prefix, CacheListener listener) {
+        CacheJob job = new CacheJob(key, true, prefix);
+        job.addListener(listener);
+        while (true) {
+            CacheJob existing = jobs.putIfAbsent(key, job);
+            if (existing == null) {
+                break;
+            }
+            // A full-file job supersedes a prefix job; the writer skips what it already cached
+            if (!prefix && existing.prefix && existing.cancellable) {
+                existing.cancel();
+                jobs.remove(key, existing);
+                continue;
             }
-            return;
+            // Single flight: attach to the transfer already pulling these bytes
+            if (existing.addListener(listener)) {
+                Log.d(TAG, "Attached to in-flight cache job: " + key);
+                return existing;
+            }
+            // It finished in the meantime, start a new one
+            jobs.remove(key, existing);
         }
-        
+
         // Download and cache in background
-        diskIO.execute(() -> {
-            String fileName = getFileNameForUrl(url);
-            File outputFile = new File(cacheDir, fileName);
-            InputStream inputStream = null;
-            FileOutputStream outputStream = null;
-            
+        job.future = executor.submit(() -> {
+            String cachedPath = null;
+            IOException error = null;
             try {
-                // Create a temporary file first to avoid partially written files
-                File tempFile = new File(cacheDir, fileName + ".temp");
-                URL audioUrl = new URL(url);
-                inputStream = new BufferedInputStream(audioUrl.openStream());
-                outputStream = new FileOutputStream(tempFile);
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+                if (job.cancelled) {
+                    return;
                 }
-                outputStream.flush();
-                
-                // Rename temp file to final file
-                if (tempFile.renameTo(outputFile)) {
-                    // Run cleanup in case we exceeded cache size
-                    cleanupCache();
-                    
-                    if (listener != null) {
-                        listener.onCacheComplete(outputFile.getAbsolutePath());
-                    }
-                } else {
-                    if (listener != null) {
-                        listener.onCacheError(new IOException("Failed to rename temp file"));
-                    }
+                // Already cached ranges are skipped by the writer
+                CacheWriter writer = new CacheWriter(dataSourceFactory.createDataSource(),
+                        dataSpec, null, (requestLength, bytesCached, newBytesCached) ->
+                        job.bytesDownloaded += newBytesCached);
+                job.writer = writer;
+                if (job.cancelled) {
+                    return;
                 }
+                writer.cache();
+                cachedPath = getCachedFilePath(url);
+            } catch (InterruptedIOException e) {
+                Log.d(TAG, "Cache job cancelled: " + key);
+                error = e;
             } catch (IOException e) {
                 Log.e(TAG, "Error caching audio file", e);
-                if (listener != null) {
-                    listener.onCacheError(e);
-                }
+                error = e;
             } finally {
-                try {
-                    if (inputStream != null) inputStream.close();
-                    if (outputStream != null) outputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error closing streams", e);
-                }
+                jobs.remove(key, job);
+                job.complete(cachedPath, job.cancelled && error == null
+                        ? new InterruptedIOException("Cancelled") : error);
             }
         });
+        return job;
     }
-    
+
     /**
-     * Cleans up cache to keep it under the size limit.
-     * Deletes oldest files first.
+     * Copies an audio file into {@code target}, reading through the cache: cached
+     * ranges are copied from disk and only missing ranges hit the network. Those are
+     * not written to the cache since the file is kept permanently. If another
+     * transfer for {@code key} is in flight, waits for it first so the same bytes are
+     * never fetched twice. Other cache requests for {@code key} arriving meanwhile
+     * attach to this copy. Blocks the caller.
+     * @param key Song id the transfer is tracked under
+     * @param url The URL of the audio file
+     * @param target File to write
+     * @param position Bytes already in {@code target}; the copy resumes from there
+     *                 with a Range request and appends. Pass 0 to start over.
+     * @param progress Optional progress callback, called on the calling thread. It may
+     *                 throw to abort the copy; {@code target} keeps what was written.
      */
-    private void cleanupCache() {
-        diskIO.execute(() -> {
-            try {
-                File[] files = cacheDir.listFiles();
-                if (files == null || files.length == 0) {
-                    return;
-                }
-                
-                // Calculate current cache size
-                long totalSize = 0;
-                for (File file : files) {
-                    totalSize += file.length();
-                }
-                
-                // If under the limit, no cleanup needed
-                if (totalSize < MAX_CACHE_SIZE) {
-                    return;
-                }
-                
-                // Sort files by last modified time (oldest first)
-                Arrays.sort(files, Comparator.comparingLong(File::lastModified));
-                
-                // Delete oldest files until we're under the limit
-                for (File file : files) {
-                    if (totalSize < MAX_CACHE_SIZE) {
-                        break;
-                    }
-                    
-                    long fileSize = file.length();
-                    if (file.delete()) {
-                        totalSize -= fileSize;
-                        Log.d(TAG, "Deleted cached file: " + file.getName());
-                    }
+    public void copyToFile(String key, String url, File target, long position,
+                           ProgressListener progress) throws IOException {
+        CacheJob job = new CacheJob(key, false, false);
+        while (true) {
+            CacheJob existing = jobs.putIfAbsent(key, job);
+            if (existing == null) {
+                break;
+            }
+            Log.d(TAG, "Waiting for in-flight transfer: " + key);
+            existing.await();
+            jobs.remove(key, existing);
+        }
+
+        if (isUrlCached(url)) {
+            Log.d(TAG, "Promoting cached audio: " + key);
+        }
+
+        String cachedPath = null;
+        IOException error = null;
+        CacheDataSource dataSource = readOnlyDataSourceFactory.createDataSource();
+        try (FileOutputStream out = new FileOutputStream(target, position > 0)) {
+            long remaining = dataSource.open(new DataSpec.Builder()
+                    .setUri(Uri.parse(url))
+                    .setPosition(position)
+                    .build());
+            long length = remaining != C.LENGTH_UNSET ? position + remaining : C.LENGTH_UNSET;
+            byte[] buffer = new byte[16 * 1024];
+            long copied = position;
+            int read;
+            while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                out.write(buffer, 0, read);
+                copied += read;
+                if (progress != null) {
+                    progress.onProgress(copied, length);
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error cleaning cache", e);
             }
-        });
+            out.flush();
+            cachedPath = getCachedFilePath(url);
+        } catch (IOException e) {
+            error = e;
+            throw e;
+        } finally {
+            dataSource.close();
+            jobs.remove(key, job);
+            job.complete(cachedPath, error);
+        }
+    }
+
+    /**
+     * Cancels every queued or running pre-cache job whose key is not in {@code keepKeys}.
+     */
+    public void cancelCacheJobsExcept(Collection<String> keepKeys) {
+        cancelJobsExcept(false, keepKeys);
+    }
+
+    /**
+     * Cancels every queued or running prefix job whose key is not in {@code keepKeys}.
+     */
+    public void cancelPrefixJobsExcept(Collection<String> keepKeys) {
+        cancelJobsExcept(true, keepKeys);
     }
-    
+
     /**
-     * Gets a cache file name from a URL by hashing it.
-     * @param url The URL to hash
-     * @return Hashed file name
+     * Cancels the background job of {@code key}, full file or prefix. Called when the
+     * player starts streaming that song, since the player writes those bytes itself.
      */
-    private String getFileNameForUrl(String url) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(url.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+    public void cancelCacheJob(String key) {
+        CacheJob job = jobs.get(key);
+        if (job != null && job.cancellable) {
+            job.cancel();
+            jobs.remove(key, job);
+        }
+    }
+
+    private void cancelJobsExcept(boolean prefix, Collection<String> keepKeys) {
+        for (CacheJob job : new ArrayList<>(jobs.values())) {
+            // Copies for permanent downloads are never cancelled from here
+            if (job.cancellable && job.prefix == prefix && !keepKeys.contains(job.key)) {
+                job.cancel();
+                jobs.remove(job.key, job);
             }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            // Fallback to a simple hash if SHA-256 is not available
-            return String.valueOf(url.hashCode());
         }
     }
-    
+
     /**
      * Clears all cached audio files.
      */
     public void clearCache() {
         diskIO.execute(() -> {
-            File[] files = cacheDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    file.delete();
-                }
+            for (String key : new ArrayList<>(cache.getKeys())) {
+                cache.removeResource(key);
             }
         });
     }
-    
+
+    private void deleteLegacyCache() {
+        diskIO.execute(() -> {
+            File legacyDir = new File(context.getCacheDir(), LEGACY_CACHE_DIR);
+            File[] files = legacyDir.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                file.delete();
+            }
+            legacyDir.delete();
+        });
+    }
+
+    /**
+     * Handle for a background pre-cache job. Every request for the same key while
+     * the job is in flight attaches its listener here.
+     */
+    public static final class CacheJob {
+        private final String key;
+        private final boolean cancellable;
+        private final boolean prefix;
+        private final List<CacheListener> listeners = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private boolean finished = false;
+        private volatile boolean cancelled = false;
+        // Only written by the job's own thread
+        private volatile long bytesDownloaded = 0;
+        private volatile CacheWriter writer;
+        private volatile Future<?> future;
+
+        private CacheJob(String key, boolean cancellable, boolean prefix) {
+            this.key = key;
+            this.cancellable = cancellable;
+            this.prefix = prefix;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Stops the transfer. Bytes already written stay in the cache.
+         */
+        public void cancel() {
+            cancelled = true;
+            CacheWriter w = writer;
+            if (w != null) {
+                w.cancel();
+            }
+            Future<?> f = future;
+            if (f != null && f.cancel(false)) {
+                // Never started, so nothing else will complete it
+                complete(null, new InterruptedIOException("Cancelled"));
+            }
+        }
+
+        /**
+         * Returns false if the job already finished and the listener was not added.
+         */
+        private synchronized boolean addListener(CacheListener listener) {
+            if (finished) {
+                return false;
+            }
+            if (listener != null) {
+                listeners.add(listener);
+            }
+            return true;
+        }
+
+        private void complete(String filePath, Exception error) {
+            List<CacheListener> toNotify;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                toNotify = new ArrayList<>(listeners);
+                listeners.clear();
+            }
+            done.countDown();
+            for (CacheListener listener : toNotify) {
+                listener.onBytesDownloaded(bytesDownloaded);
+                if (error == null) {
+                    listener.onCacheComplete(filePath);
+                } else {
+                    listener.onCacheError(error);
+                }
+            }
+        }
+
+        private void await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Progress of {@link #copyToFile}. {@code totalBytes} is C.LENGTH_UNSET if unknown.
+     */
+    public interface ProgressListener {
+        void onProgress(long bytesCopied, long totalBytes) throws IOException;
+    }
+
     /**
      * Listener for cache operations.
      */
     public interface CacheListener {
         void onCacheComplete(String filePath);
         void onCacheError(Exception e);
+
+        /**
+         * Bytes the job fetched from the network, reported right before it completes,
+         * cancelled or not. Ranges that were already cached don't count.
+         */
+        default void onBytesDownloaded(long bytes) {
+        }
     }
-} 
+}
@@ -0,0 +1,203 @@
+package com.midnight.music.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.midnight.music.data.model.Song;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Low-priority prefetcher that pulls the first few hundred KB of songs the user is
+ * likely to tap next (visible list items, the next queue entry) into the audio cache,
+ * so time-to-first-audio becomes a disk read.
+ *
+ * Every screen reports what it shows under its own owner key; songs that are no longer
+ * visible anywhere are cancelled. Prefetching is skipped on metered networks and
+ * bounded by an hourly byte budget: a full prefix is reserved when a job starts and
+ * whatever it didn't fetch (cancelled, or partly cached already) is refunded when it
+ * ends. Must be called from the main thread.
+ */
+public class AudioPrefetcher {
+    private static final String TAG = "AudioPrefetcher";
+    private static final long PREFIX_BYTES = 256 * 1024; // 256 KB ≈ first 8-15s of audio
+    private static final long BUDGET_BYTES = 16 * 1024 * 1024; // 16 MB
+    private static final long BUDGET_WINDOW_MS = 60 * 60 * 1000; // per hour
+    private static volatile AudioPrefetcher instance;
+
+    private final Context context;
+    private final AudioCacheManager audioCacheManager;
+    private final Map<String, Set<String>> visibleByOwner = new HashMap<>();
+    // Guarded by this: refunds arrive on the prefetch thread
+    private long budgetWindowStart = 0;
+    private long bytesSpent = 0;
+    private final AudioCacheManager.CacheListener budgetRefund = new AudioCacheManager.CacheListener() {
+        @Override
+        public void onCacheComplete(String filePath) {
+        }
+
+        @Override
+        public void onCacheError(Exception e) {
+        }
+
+        @Override
+        public void onBytesDownloaded(long bytes) {
+            refundBudget(PREFIX_BYTES - Math.min(bytes, PREFIX_BYTES));
+        }
+    };
+
+    /**
+     * Returns the song shown at an adapter position, or null.
+     */
+    public interface SongProvider {
+        Song getSongAt(int position);
+    }
+
+    private AudioPrefetcher(Context context) {
+        this.context = context.getApplicationContext();
+        this.audioCacheManager = AudioCacheManager.getInstance(context);
+    }
+
+    public static AudioPrefetcher getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AudioPrefetcher.class) {
+                if (instance == null) {
+                    instance = new AudioPrefetcher(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the set of songs shown by {@code owner} and prefetches their prefixes.
+     * Prefetches for songs no longer shown by any owner are cancelled.
+     */
+    public void setVisibleSongs(String owner, List<Song> songs) {
+        Set<String> ids = new HashSet<>();
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        visibleByOwner.put(owner, ids);
+
+        if (isMetered()) {
+            // Paused: drop everything in flight, nothing new is started
+            audioCacheManager.cancelPrefixJobsExcept(new HashSet<>());
+            return;
+        }
+        audioCacheManager.cancelPrefixJobsExcept(allVisibleIds());
+
+        for (Song song : songs) {
+            String url = song.getMediaUrl();
+            if (url == null || isDownloaded(song) || audioCacheManager.hasCacheJob(song.getId())
+                    || audioCacheManager.isPrefixCached(url, PREFIX_BYTES)) {
+                continue;
+            }
+            if (!reserveBudget()) {
+                Log.d(TAG, "Prefetch budget exhausted");
+                return;
+            }
+            audioCacheManager.cacheAudioPrefix(song.getId(), url, PREFIX_BYTES, budgetRefund);
+        }
+    }
+
+    /**
+     * Forgets everything {@code owner} showed and cancels its prefetches.
+     */
+    public void clear(String owner) {
+        if (visibleByOwner.remove(owner) != null) {
+            audioCacheManager.cancelPrefixJobsExcept(allVisibleIds());
+        }
+    }
+
+    /**
+     * Prefetches whatever {@code recyclerView} shows whenever it settles after a
+     * scroll or a data change. Requires a LinearLayoutManager (or subclass).
+     */
+    public void attach(RecyclerView recyclerView, String owner, SongProvider provider) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    updateFromRecyclerView(rv, owner, provider);
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                // dx == dy == 0 means a layout pass changed the visible range (new data)
+                if (dx == 0 && dy == 0 && rv.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+                    updateFromRecyclerView(rv, owner, provider);
+                }
+            }
+        });
+    }
+
+    private void updateFromRecyclerView(RecyclerView recyclerView, String owner, SongProvider provider) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        List<Song> visible = new ArrayList<>();
+        for (int position = first; position <= last; position++) {
+            Song song = provider.getSongAt(position);
+            if (song != null) {
+                visible.add(song);
+            }
+        }
+        setVisibleSongs(owner, visible);
+    }
+
+    private Set<String> allVisibleIds() {
+        Set<String> all = new HashSet<>();
+        for (Set<String> ids : visibleByOwner.values()) {
+            all.addAll(ids);
+        }
+        return all;
+    }
+
+    private synchronized boolean reserveBudget() {
+        long now = SystemClock.elapsedRealtime();
+        if (now - budgetWindowStart > BUDGET_WINDOW_MS) {
+            budgetWindowStart = now;
+            bytesSpent = 0;
+        }
+        if (bytesSpent + PREFIX_BYTES > BUDGET_BYTES) {
+            return false;
+        }
+        bytesSpent += PREFIX_BYTES;
+        return true;
+    }
+
+    private synchronized void refundBudget(long bytes) {
+        // A refund for a job reserved in the previous window has nothing left to undo
+        bytesSpent = Math.max(0, bytesSpent - bytes);
+    }
+
+    private boolean isMetered() {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return cm == null || cm.isActiveNetworkMetered();
+    }
+
+    private static boolean isDownloaded(Song song) {
+        return song.isDownloaded() && song.getLocalPath() != null && new File(song.getLocalPath()).exists();
+    }
+}
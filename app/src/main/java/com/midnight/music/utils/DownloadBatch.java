@@ -0,0 +1,174 @@
+package com.midnight.music.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.midnight.music.data.model.Song;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A group of songs downloaded together (e.g. "download all" of a playlist) that
+ * reports one aggregated progress stream instead of one per song.
+ *
+ * Progress is weighted by bytes, so a long track moves the bar more than a short
+ * one. Songs whose size isn't known yet count as the average of the known ones.
+ * Updates from the download threads only mark the batch dirty; the listener runs
+ * on the main thread at most once per {@link #FRAME_INTERVAL_MS}.
+ */
+public class DownloadBatch {
+    // ~10 updates per second is plenty for a progress bar
+    static final long FRAME_INTERVAL_MS = 100;
+
+    /**
+     * Callbacks run on the main thread.
+     */
+    public interface BatchListener {
+        void onProgress(int percent, int finished, int total);
+        void onComplete(int succeeded, int failed);
+    }
+
+    private final String title;
+    private final BatchListener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Set<String> songIds = new HashSet<>();
+    private final Set<String> pending = new HashSet<>();
+    private final Map<String, Long> downloadedBytes = new HashMap<>();
+    private final Map<String, Long> totalBytes = new HashMap<>();
+    private final int total;
+    private int succeeded = 0;
+    private int failed = 0;
+    private boolean frameScheduled = false;
+    private long lastFrameAt = 0;
+
+    private final Runnable frame = this::dispatchFrame;
+
+    DownloadBatch(String title, List<Song> songs, BatchListener listener) {
+        this.title = title;
+        this.listener = listener;
+        for (Song song : songs) {
+            songIds.add(song.getId());
+        }
+        pending.addAll(songIds);
+        this.total = songIds.size();
+    }
+
+    synchronized boolean contains(String songId) {
+        return pending.contains(songId);
+    }
+
+    synchronized boolean isFinished() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Called from download threads as bytes arrive.
+     */
+    synchronized void onSongProgress(String songId, long bytes, long length) {
+        if (!pending.contains(songId)) {
+            return;
+        }
+        downloadedBytes.put(songId, bytes);
+        if (length > 0) {
+            totalBytes.put(songId, length);
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * Called once per song when it is saved (or has given up). The last song
+     * delivers {@link BatchListener#onComplete} right away, without throttling.
+     */
+    void onSongFinished(String songId, boolean success) {
+        boolean done;
+        synchronized (this) {
+            if (!pending.remove(songId)) {
+                return;
+            }
+            if (success) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            done = pending.isEmpty();
+            if (!done) {
+                scheduleFrame();
+            }
+        }
+        if (done) {
+            mainHandler.removeCallbacks(frame);
+            int ok = succeeded;
+            int errors = failed;
+            mainHandler.post(() -> {
+                if (errors == 0) {
+                    DownloadObserver.getInstance().setComplete();
+                } else {
+                    DownloadObserver.getInstance().setError();
+                }
+                if (listener != null) {
+                    listener.onComplete(ok, errors);
+                }
+            });
+        }
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+        long wait = Math.max(0, lastFrameAt + FRAME_INTERVAL_MS - SystemClock.uptimeMillis());
+        mainHandler.postDelayed(frame, wait);
+    }
+
+    private void dispatchFrame() {
+        int percent;
+        int finished;
+        synchronized (this) {
+            frameScheduled = false;
+            lastFrameAt = SystemClock.uptimeMillis();
+            if (pending.isEmpty()) {
+                return;
+            }
+            percent = computePercent();
+            finished = succeeded + failed;
+        }
+        DownloadObserver.getInstance().updateProgress(title + " (" + finished + "/" + total + ")", percent);
+        if (listener != null) {
+            listener.onProgress(percent, finished, total);
+        }
+    }
+
+    private int computePercent() {
+        if (total == 0) {
+            return 100;
+        }
+        long knownSum = 0;
+        for (long length : totalBytes.values()) {
+            knownSum += length;
+        }
+        // Songs without a known size weigh as much as an average known one
+        double averageSize = totalBytes.isEmpty() ? 1 : (double) knownSum / totalBytes.size();
+
+        double done = 0;
+        double all = 0;
+        for (String songId : songIds) {
+            Long length = totalBytes.get(songId);
+            double weight = length != null ? length : averageSize;
+            all += weight;
+            if (!pending.contains(songId)) {
+                // Finished songs (saved or failed) count as fully done
+                done += weight;
+            } else if (length != null) {
+                Long bytes = downloadedBytes.get(songId);
+                done += bytes != null ? Math.min(bytes, length) : 0;
+            }
+        }
+        return all <= 0 ? 0 : (int) Math.min(100, done * 100 / all);
+    }
+}
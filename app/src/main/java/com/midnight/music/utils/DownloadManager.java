@@ -1,35 +1,65 @@
 package com.midnight.music.utils;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.HttpDataSource;
+
 import com.midnight.music.data.db.AppDatabase;
+import com.midnight.music.data.db.DownloadTaskDao;
+import com.midnight.music.data.model.DownloadTask;
 import com.midnight.music.data.model.Song;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manages downloading songs to permanent storage (not cache).
  * Downloaded files persist until the user explicitly deletes them.
+ *
+ * Requests go into a persistent queue (download_queue table) that is drained by
+ * {@link DownloadWorker}s, so downloads survive process death and wait for a
+ * network. A partial file is kept as {@code .tmp} and resumed with a Range request.
  */
 public class DownloadManager {
     private static final String TAG = "DownloadManager";
     private static final String DOWNLOAD_DIR = "downloads";
+    private static final String PREFS_NAME = "download_prefs";
+    private static final String KEY_MAX_CONCURRENT = "max_concurrent_downloads";
+    private static final int DEFAULT_MAX_CONCURRENT = 2;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 30_000;
+    // Finished downloads are written to the database this many at a time
+    private static final int STATUS_CHUNK_SIZE = 20;
     private static volatile DownloadManager instance;
 
     private final Context context;
     private final File downloadDir;
-    private final Executor diskIO = Executors.newFixedThreadPool(2);
+    private final SharedPreferences prefs;
+    private final Executor diskIO = Executors.newSingleThreadExecutor();
+    private boolean recovered = false;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Listeners of every download in flight, keyed by song id
+    private final Map<String, List<DownloadListener>> inFlight = new HashMap<>();
+    private final List<DownloadBatch> batches = new CopyOnWriteArrayList<>();
+    // Saved files whose status isn't in the database yet: song id -> local path
+    private final Map<String, String> unsavedStatus = new LinkedHashMap<>();
 
     public interface DownloadListener {
         void onProgress(int percent);
@@ -40,6 +70,7 @@ public class DownloadManager {
     private DownloadManager(Context context) {
         this.context = context.getApplicationContext();
         this.downloadDir = new File(context.getFilesDir(), DOWNLOAD_DIR);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         if (!downloadDir.exists()) {
             downloadDir.mkdirs();
         }
@@ -57,7 +88,10 @@ public class DownloadManager {
     }
 
     /**
-     * Downloads a song's audio file to permanent storage and updates the database.
+     * Queues a song's audio file for download to permanent storage; the database is
+     * updated once it completes. Concurrent requests for the same song share one
+     * transfer, and audio already in the streaming cache is copied from disk instead
+     * of downloaded again. Listeners only live as long as the process does.
      */
     public void downloadSong(Song song, DownloadListener listener) {
         if (song == null || song.getMediaUrl() == null) {
@@ -79,83 +113,355 @@ public class DownloadManager {
             }
         }
 
+        // Single flight: a second request for the same song just waits for the first
+        synchronized (inFlight) {
+            List<DownloadListener> waiting = inFlight.get(song.getId());
+            if (waiting != null) {
+                if (listener != null) {
+                    waiting.add(listener);
+                }
+                return;
+            }
+            waiting = new ArrayList<>();
+            if (listener != null) {
+                waiting.add(listener);
+            }
+            inFlight.put(song.getId(), waiting);
+        }
+
         diskIO.execute(() -> {
-            String fileName = sanitizeFileName(song.getId(), song.getSong());
-            File outputFile = new File(downloadDir, fileName);
-            File tempFile = new File(downloadDir, fileName + ".tmp");
-            InputStream inputStream = null;
-            FileOutputStream outputStream = null;
+            try {
+                enqueue(Collections.singletonList(DownloadTask.fromSong(song)));
+            } catch (Exception e) {
+                Log.e(TAG, "Error queueing download: " + song.getSong(), e);
+                for (DownloadListener l : finish(song.getId())) {
+                    mainHandler.post(() -> l.onError(e));
+                }
+            }
+        });
+    }
 
+    /**
+     * Queues a group of songs (e.g. a whole playlist) as one batch. Instead of a
+     * callback per song and percent, {@code listener} gets one byte-weighted progress
+     * stream for the whole batch, throttled to the UI frame interval, and a single
+     * completion. Songs already on disk count as done.
+     */
+    public void downloadSongs(String title, List<Song> songs, DownloadBatch.BatchListener listener) {
+        List<Song> valid = new ArrayList<>();
+        for (Song song : songs) {
+            if (song != null && song.getMediaUrl() != null) {
+                valid.add(song);
+            }
+        }
+        DownloadBatch batch = new DownloadBatch(title, valid, listener);
+        batches.add(batch);
+
+        List<DownloadTask> tasks = new ArrayList<>();
+        for (Song song : valid) {
+            if (isDownloadedOnDisk(song) && song.isDownloaded()) {
+                batch.onSongFinished(song.getId(), true);
+            } else {
+                tasks.add(DownloadTask.fromSong(song));
+            }
+        }
+        if (tasks.isEmpty()) {
+            batches.remove(batch);
+            if (valid.isEmpty() && listener != null) {
+                mainHandler.post(() -> listener.onComplete(0, 0));
+            }
+            return;
+        }
+
+        diskIO.execute(() -> {
             try {
-                URL audioUrl = new URL(song.getMediaUrl());
-                java.net.HttpURLConnection connection = (java.net.HttpURLConnection) audioUrl.openConnection();
-                connection.connect();
-
-                int fileLength = connection.getContentLength();
-                inputStream = new BufferedInputStream(connection.getInputStream());
-                outputStream = new FileOutputStream(tempFile);
-
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytesRead = 0;
-                int lastPercent = 0;
-
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-
-                    if (fileLength > 0) {
-                        int percent = (int) (totalBytesRead * 100 / fileLength);
-                        if (percent != lastPercent) {
-                            lastPercent = percent;
-                            final int p = percent;
-                            DownloadObserver.getInstance().updateProgress(song.getSong(), p);
-                            if (listener != null) {
-                                mainHandler.post(() -> listener.onProgress(p));
+                enqueue(tasks);
+            } catch (Exception e) {
+                Log.e(TAG, "Error queueing batch: " + title, e);
+                batches.remove(batch);
+                for (DownloadTask task : tasks) {
+                    batch.onSongFinished(task.getSongId(), false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Persists tasks and wakes the worker lanes. Tasks already queued are left as
+     * they are, failed ones get a fresh set of attempts. Must run off the main thread.
+     */
+    private void enqueue(List<DownloadTask> tasks) {
+        DownloadTaskDao dao = AppDatabase.getInstance(context).downloadTaskDao();
+        ensureRecovered(dao);
+        List<String> ids = new ArrayList<>();
+        for (DownloadTask task : tasks) {
+            ids.add(task.getSongId());
+        }
+        dao.insertAll(tasks);
+        dao.requeueFailed(ids);
+        DownloadWorker.scheduleLanes(context, getMaxConcurrentDownloads());
+    }
+
+    /**
+     * Tasks marked running by a process that has since died go back to the queue.
+     * Done once per process, before the first task is claimed.
+     */
+    private synchronized void ensureRecovered(DownloadTaskDao dao) {
+        if (!recovered) {
+            dao.resetRunning();
+            recovered = true;
+        }
+    }
+
+    // ============ Worker side ============
+
+    /**
+     * Claims the oldest runnable task, or returns null if none is due.
+     * Called by {@link DownloadWorker} on its background thread.
+     */
+    DownloadTask claimNextTask() {
+        DownloadTaskDao dao = AppDatabase.getInstance(context).downloadTaskDao();
+        ensureRecovered(dao);
+        return dao.claimNext(System.currentTimeMillis());
+    }
+
+    /**
+     * Whether tasks are waiting for their retry backoff to pass.
+     */
+    boolean hasQueuedTasks() {
+        return AppDatabase.getInstance(context).downloadTaskDao().getQueuedCount() > 0;
+    }
+
+    /**
+     * Downloads one claimed task, resuming its .tmp file if there is one. Blocks the
+     * calling worker thread. When {@code stopped} turns true the transfer is aborted
+     * and the task goes back to the queue without costing an attempt.
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    void runTask(DownloadTask task, BooleanSupplier stopped) {
+        DownloadTaskDao dao = AppDatabase.getInstance(context).downloadTaskDao();
+        String songId = task.getSongId();
+        String fileName = sanitizeFileName(songId, task.getTitle());
+        File outputFile = new File(downloadDir, fileName);
+        File tempFile = new File(downloadDir, fileName + ".tmp");
+        if (outputFile.exists() && !tempFile.exists()) {
+            // Saved before the process died, only the database update was lost
+            markSaved(songId, outputFile.getAbsolutePath());
+            return;
+        }
+        long resumeFrom = tempFile.exists() ? tempFile.length() : 0;
+        final long[] total = {task.getTotalBytes()};
+        final int[] lastPercent = {-1};
+
+        if (resumeFrom > 0) {
+            Log.d(TAG, "Resuming " + task.getTitle() + " at " + resumeFrom + " bytes");
+        }
+
+        try {
+            AudioCacheManager.getInstance(context).copyToFile(songId, task.getMediaUrl(), tempFile, resumeFrom,
+                    (bytesCopied, totalBytes) -> {
+                        if (stopped.getAsBoolean()) {
+                            throw new InterruptedIOException("Download worker stopped");
+                        }
+                        if (totalBytes <= 0) {
+                            return;
+                        }
+                        total[0] = totalBytes;
+                        boolean batched = false;
+                        for (DownloadBatch batch : batches) {
+                            if (batch.contains(songId)) {
+                                batch.onSongProgress(songId, bytesCopied, totalBytes);
+                                batched = true;
                             }
                         }
-                    }
-                }
-                outputStream.flush();
-
-                // Rename temp to final
-                if (tempFile.renameTo(outputFile)) {
-                    String localPath = outputFile.getAbsolutePath();
-
-                    // Update database — use UPDATE instead of INSERT to avoid
-                    // REPLACE strategy cascade-deleting playlist cross-references
-                    AppDatabase db = AppDatabase.getInstance(context);
-                    song.setDownloaded(true);
-                    song.setLocalPath(localPath);
-                    db.songDao().updateDownloadStatus(song.getId(), true, localPath);
-
-                    if (listener != null) {
-                        mainHandler.post(() -> listener.onComplete(localPath));
-                    }
-                    DownloadObserver.getInstance().setComplete();
-                } else {
-                    tempFile.delete();
-                    if (listener != null) {
-                        mainHandler.post(() -> listener.onError(
-                                new IOException("Failed to save downloaded file")));
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Download failed for: " + song.getSong(), e);
+                        int percent = (int) (bytesCopied * 100 / totalBytes);
+                        if (percent != lastPercent[0]) {
+                            lastPercent[0] = percent;
+                            if (!batched) {
+                                DownloadObserver.getInstance().updateProgress(task.getTitle(), percent);
+                            }
+                            for (DownloadListener l : listenersFor(songId)) {
+                                mainHandler.post(() -> l.onProgress(percent));
+                            }
+                        }
+                    });
+
+            // Rename temp to final
+            if (!tempFile.renameTo(outputFile)) {
+                throw new IOException("Failed to save downloaded file");
+            }
+            markSaved(songId, outputFile.getAbsolutePath());
+        } catch (Exception e) {
+            long downloaded = tempFile.exists() ? tempFile.length() : 0;
+            if (stopped.getAsBoolean()) {
+                // Not the download's fault: keep the partial file and the attempt count
+                Log.d(TAG, "Download paused: " + task.getTitle());
+                dao.scheduleRetry(songId, task.getAttempts(), 0, downloaded, total[0]);
+                return;
+            }
+
+            int attempts = task.getAttempts() + 1;
+            if (isRangeNotSatisfiable(e)) {
+                // The partial file no longer matches the remote one, start over
                 tempFile.delete();
+                downloaded = 0;
+            }
+            if (attempts < MAX_ATTEMPTS && isRetryable(e)) {
+                long delay = RETRY_BASE_DELAY_MS << (attempts - 1);
+                Log.w(TAG, "Download failed for: " + task.getTitle() + ", retry " + attempts
+                        + " in " + delay + " ms", e);
+                dao.scheduleRetry(songId, attempts, System.currentTimeMillis() + delay, downloaded, total[0]);
+                return;
+            }
+
+            Log.e(TAG, "Download failed for: " + task.getTitle(), e);
+            tempFile.delete();
+            dao.updateState(songId, DownloadTask.STATE_FAILED);
+            if (!finishInBatches(songId, false)) {
                 DownloadObserver.getInstance().setError();
-                if (listener != null) {
-                    mainHandler.post(() -> listener.onError(e));
+            }
+            for (DownloadListener l : finish(songId)) {
+                mainHandler.post(() -> l.onError(e));
+            }
+        }
+    }
+
+    /**
+     * Records a saved file. Batch songs are written to the database in chunks;
+     * a song nobody is batching is written right away.
+     */
+    private void markSaved(String songId, String localPath) {
+        boolean flushNow;
+        synchronized (unsavedStatus) {
+            unsavedStatus.put(songId, localPath);
+            flushNow = unsavedStatus.size() >= STATUS_CHUNK_SIZE || !isBatched(songId);
+        }
+        if (flushNow) {
+            flushSavedStatus();
+        }
+    }
+
+    /**
+     * Writes every saved-but-unrecorded download to the database in one transaction,
+     * then notifies listeners. Called per chunk and when a worker runs out of tasks.
+     */
+    void flushSavedStatus() {
+        Map<String, String> chunk;
+        synchronized (unsavedStatus) {
+            if (unsavedStatus.isEmpty()) {
+                return;
+            }
+            chunk = new LinkedHashMap<>(unsavedStatus);
+            unsavedStatus.clear();
+        }
+
+        AppDatabase db = AppDatabase.getInstance(context);
+        try {
+            // Update database — use UPDATE instead of INSERT to avoid
+            // REPLACE strategy cascade-deleting playlist cross-references
+            db.runInTransaction(() -> {
+                for (Map.Entry<String, String> saved : chunk.entrySet()) {
+                    db.songDao().updateDownloadStatus(saved.getKey(), true, saved.getValue());
+                    db.downloadTaskDao().delete(saved.getKey());
                 }
-            } finally {
-                try {
-                    if (inputStream != null) inputStream.close();
-                    if (outputStream != null) outputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error closing streams", e);
+            });
+        } catch (Exception e) {
+            // Files are on disk; try again with the next chunk
+            Log.e(TAG, "Error saving download status", e);
+            synchronized (unsavedStatus) {
+                for (Map.Entry<String, String> saved : chunk.entrySet()) {
+                    unsavedStatus.putIfAbsent(saved.getKey(), saved.getValue());
                 }
             }
-        });
+            return;
+        }
+
+        boolean standalone = false;
+        for (Map.Entry<String, String> saved : chunk.entrySet()) {
+            String songId = saved.getKey();
+            String localPath = saved.getValue();
+            if (!finishInBatches(songId, true)) {
+                standalone = true;
+            }
+            for (DownloadListener l : finish(songId)) {
+                mainHandler.post(() -> l.onComplete(localPath));
+            }
+        }
+        if (standalone) {
+            DownloadObserver.getInstance().setComplete();
+        }
+    }
+
+    private boolean isBatched(String songId) {
+        for (DownloadBatch batch : batches) {
+            if (batch.contains(songId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports a finished song to every batch waiting for it.
+     * @return false if no batch was waiting
+     */
+    private boolean finishInBatches(String songId, boolean success) {
+        boolean batched = false;
+        for (DownloadBatch batch : batches) {
+            if (batch.contains(songId)) {
+                batch.onSongFinished(songId, success);
+                batched = true;
+                if (batch.isFinished()) {
+                    batches.remove(batch);
+                }
+            }
+        }
+        return batched;
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof HttpDataSource.InvalidResponseCodeException) {
+            int code = ((HttpDataSource.InvalidResponseCodeException) e).responseCode;
+            // Client errors won't go away by asking again, except timeouts and throttling
+            return code < 400 || code >= 500 || code == 408 || code == 416 || code == 429;
+        }
+        return e instanceof IOException;
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private static boolean isRangeNotSatisfiable(Exception e) {
+        return e instanceof HttpDataSource.InvalidResponseCodeException
+                && ((HttpDataSource.InvalidResponseCodeException) e).responseCode == 416;
+    }
+
+    // ============ Settings ============
+
+    /**
+     * Maximum number of songs downloaded in parallel.
+     */
+    public int getMaxConcurrentDownloads() {
+        return prefs.getInt(KEY_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT);
+    }
+
+    public void setMaxConcurrentDownloads(int maxConcurrent) {
+        int clamped = Math.max(1, Math.min(maxConcurrent, DownloadWorker.MAX_LANES));
+        prefs.edit().putInt(KEY_MAX_CONCURRENT, clamped).apply();
+        diskIO.execute(() -> DownloadWorker.scheduleLanes(context, clamped));
+    }
+
+    private List<DownloadListener> listenersFor(String songId) {
+        synchronized (inFlight) {
+            List<DownloadListener> waiting = inFlight.get(songId);
+            return waiting != null ? new ArrayList<>(waiting) : new ArrayList<>();
+        }
+    }
+
+    private List<DownloadListener> finish(String songId) {
+        synchronized (inFlight) {
+            List<DownloadListener> waiting = inFlight.remove(songId);
+            return waiting != null ? waiting : new ArrayList<>();
+        }
     }
 
     /**
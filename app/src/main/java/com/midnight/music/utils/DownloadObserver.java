@@ -1,5 +1,8 @@
 package com.midnight.music.utils;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -23,6 +26,14 @@ public class DownloadObserver {
 
     private final MutableLiveData<DownloadState> downloadState = new MutableLiveData<>(new DownloadState(false, "", 0, false));
 
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Latest progress not yet published; progress arrives far faster than it can be drawn
+    private String pendingTitle;
+    private int pendingProgress;
+    private boolean progressScheduled = false;
+    private long lastPublishedAt = 0;
+    private final Runnable publishProgress = this::publishProgress;
+
     private DownloadObserver() {}
 
     public static DownloadObserver getInstance() {
@@ -45,16 +56,50 @@ public class DownloadObserver {
             Log.w("DownloadObserver", "Progress " + progress + " out of range, clamping to [0,100]");
         }
         int boundedProgress = Math.max(0, Math.min(100, progress));
-        downloadState.postValue(new DownloadState(true, title, boundedProgress, false));
+        // Coalesce: at most one LiveData update per frame interval, carrying the latest value
+        synchronized (this) {
+            pendingTitle = title;
+            pendingProgress = boundedProgress;
+            if (progressScheduled) {
+                return;
+            }
+            progressScheduled = true;
+            long wait = Math.max(0, lastPublishedAt + DownloadBatch.FRAME_INTERVAL_MS - SystemClock.uptimeMillis());
+            mainHandler.postDelayed(publishProgress, wait);
+        }
+    }
+
+    private void publishProgress() {
+        String title;
+        int progress;
+        synchronized (this) {
+            progressScheduled = false;
+            lastPublishedAt = SystemClock.uptimeMillis();
+            title = pendingTitle;
+            progress = pendingProgress;
+        }
+        DownloadState current = downloadState.getValue();
+        if (current != null && current.isActive && current.progress == progress
+                && title != null && title.equals(current.title)) {
+            return;
+        }
+        downloadState.setValue(new DownloadState(true, title, progress, false));
     }
 
     public void setComplete() {
+        cancelPendingProgress();
         // Can optionally set isActive to false immediately, 
         // or let the UI handle a delayed fade-out
         downloadState.postValue(new DownloadState(false, "Complete", 100, false));
     }
 
     public void setError() {
+        cancelPendingProgress();
         downloadState.postValue(new DownloadState(false, "Failed", 0, true));
     }
+
+    private synchronized void cancelPendingProgress() {
+        mainHandler.removeCallbacks(publishProgress);
+        progressScheduled = false;
+    }
 }
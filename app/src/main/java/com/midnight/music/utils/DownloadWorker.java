@@ -0,0 +1,109 @@
+package com.midnight.music.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.midnight.music.data.model.DownloadTask;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkManager Worker that drains the persistent download queue.
+ * Each worker is one "lane" that downloads a song at a time; the number of lanes
+ * is the download concurrency limit. Workers only run with a network connection
+ * and are re-run by WorkManager after process death.
+ */
+public class DownloadWorker extends Worker {
+    private static final String TAG = "DownloadWorker";
+    public static final String WORK_NAME_LANE = "daynight_download_lane_";
+    public static final int MAX_LANES = 4;
+
+    public DownloadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        DownloadManager manager = DownloadManager.getInstance(getApplicationContext());
+        DownloadTask task;
+        while (!isStopped() && (task = manager.claimNextTask()) != null) {
+            manager.runTask(task, this::isStopped);
+        }
+        // Record whatever finished since the last full chunk
+        manager.flushSavedStatus();
+
+        // Tasks still waiting out their retry delay: come back after a backoff
+        if (!isStopped() && manager.hasQueuedTasks()) {
+            Log.d(TAG, "Queued downloads waiting for retry");
+            return Result.retry();
+        }
+        return Result.success();
+    }
+
+    // ============ Static scheduling helpers ============
+
+    /**
+     * Makes sure {@code lanes} workers will drain the queue. A lane that is already
+     * running gets a follow-up appended, so tasks queued while it finishes aren't
+     * missed; a lane that already has one waiting is left alone, so repeated enqueues
+     * don't grow its chain. Lanes beyond the limit are cancelled; their task goes back
+     * to the queue. Blocks on WorkManager, so must run off the main thread.
+     */
+    public static void scheduleLanes(Context context, int lanes) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        WorkManager workManager = WorkManager.getInstance(context);
+        for (int i = 0; i < MAX_LANES; i++) {
+            if (i >= lanes) {
+                workManager.cancelUniqueWork(WORK_NAME_LANE + i);
+                continue;
+            }
+            if (hasPendingRun(workManager, WORK_NAME_LANE + i)) {
+                continue;
+            }
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(DownloadWorker.class)
+                    .setConstraints(constraints)
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                    .build();
+            workManager.enqueueUniqueWork(WORK_NAME_LANE + i, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+        }
+        Log.d(TAG, "Download lanes scheduled: " + lanes);
+    }
+
+    /**
+     * Whether the lane has a run that hasn't started yet. It will claim newly queued
+     * tasks when it does, so another follow-up would only be an empty run.
+     */
+    private static boolean hasPendingRun(WorkManager workManager, String name) {
+        try {
+            List<WorkInfo> infos = workManager.getWorkInfosForUniqueWork(name).get();
+            for (WorkInfo info : infos) {
+                WorkInfo.State state = info.getState();
+                if (state == WorkInfo.State.ENQUEUED || state == WorkInfo.State.BLOCKED) {
+                    return true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error reading lane state: " + name, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+}
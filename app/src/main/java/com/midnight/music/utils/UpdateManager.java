@@ -20,6 +20,7 @@ import androidx.core.content.FileProvider;
 import com.midnight.music.BuildConfig;
 import com.midnight.music.R;
 import com.midnight.music.data.api.GitHubApiService;
+import com.midnight.music.data.network.ApiClients;
 import com.midnight.music.data.model.github.GitHubAsset;
 import com.midnight.music.data.model.github.GitHubRelease;
 
@@ -28,8 +29,6 @@ import java.io.File;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 public class UpdateManager {
     private static final String TAG = "UpdateManager";
@@ -45,12 +44,7 @@ public class UpdateManager {
     public UpdateManager(Activity activity) {
         this.activity = activity;
         
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://api.github.com/")
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-                
-        apiService = retrofit.create(GitHubApiService.class);
+        apiService = ApiClients.create("https://api.github.com/", GitHubApiService.class);
     }
 
     public void checkForUpdates(boolean manualCheck) {
@@ -0,0 +1,47 @@
+-- Incremental sync: every synced table carries updated_at, bumped on each write.
+-- The app pulls rows with updated_at past its per-table watermark, ordered by it
+-- (see CloudSyncManager and SupabaseDataService). Values are stamped before commit,
+-- so each pull reaches a few minutes behind the watermark to catch late commits. Apply before shipping a build
+-- that syncs incrementally: PostgREST answers 400 for an unknown order/filter column.
+
+create or replace function public.set_updated_at()
+returns trigger
+language plpgsql
+as $$
+begin
+    -- clock_timestamp(), not now(): rows of one long transaction still get distinct,
+    -- increasing values, so a watermark never lands in the middle of a batch tie
+    new.updated_at = clock_timestamp();
+    return new;
+end;
+$$;
+
+alter table public.songs
+    add column if not exists updated_at timestamptz not null default clock_timestamp();
+alter table public.playlists
+    add column if not exists updated_at timestamptz not null default clock_timestamp();
+alter table public.playlist_songs
+    add column if not exists updated_at timestamptz not null default clock_timestamp();
+
+drop trigger if exists songs_set_updated_at on public.songs;
+create trigger songs_set_updated_at
+    before insert or update on public.songs
+    for each row execute function public.set_updated_at();
+
+drop trigger if exists playlists_set_updated_at on public.playlists;
+create trigger playlists_set_updated_at
+    before insert or update on public.playlists
+    for each row execute function public.set_updated_at();
+
+drop trigger if exists playlist_songs_set_updated_at on public.playlist_songs;
+create trigger playlist_songs_set_updated_at
+    before insert or update on public.playlist_songs
+    for each row execute function public.set_updated_at();
+
+-- Pulls filter on user_id and updated_at and sort by updated_at
+create index if not exists songs_user_id_updated_at_idx
+    on public.songs (user_id, updated_at);
+create index if not exists playlists_user_id_updated_at_idx
+    on public.playlists (user_id, updated_at);
+create index if not exists playlist_songs_user_id_updated_at_idx
+    on public.playlist_songs (user_id, updated_at);
@@ -0,0 +1,18 @@
+-- Manual ordering of playlist songs. The app keeps a sparse position per row (steps of
+-- 2^20, halved on every move, respaced when a gap runs out) and syncs it here as is;
+-- added_at goes back to being the time the song was added.
+
+alter table public.playlist_songs
+    add column if not exists position bigint;
+
+-- Until now the app pushed its position in added_at, so that is the best order known
+update public.playlist_songs
+    set position = added_at
+    where position is null;
+
+alter table public.playlist_songs
+    alter column position set default 0,
+    alter column position set not null;
+
+create index if not exists playlist_songs_playlist_id_position_idx
+    on public.playlist_songs (playlist_id, position);